@@ -0,0 +1,66 @@
+package antifraud;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.Transaction;
+import antifraud.fraud.rules.RuleEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Run with -Pjmh.prof=gc and compare gc.alloc.rate.norm (bytes/op) between the two paths.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class AllocationBenchmark {
+    private static final int REQUESTS = 4096;
+
+    private SeededContext context;
+    private ObjectMapper objectMapper;
+    private TransactionJsonCodec codec;
+    private RuleEngine ruleEngine;
+    private byte[][] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SeededContext();
+        objectMapper = context.getBean(ObjectMapper.class);
+        codec = new TransactionJsonCodec(objectMapper);
+        ruleEngine = context.getBean(RuleEngine.class);
+        requests = new byte[REQUESTS][];
+
+        for (int i = 0; i < REQUESTS; i++) {
+            Transaction transaction = context.nextTransaction().toEntity(null);
+            requests[i] = ("{\"amount\":" + transaction.getAmount() + ",\"ip\":\"" + transaction.getIp() + "\",\"number\":\"" + transaction.getNumber()
+                    + "\",\"region\":\"" + transaction.getRegion() + "\",\"date\":\"" + transaction.getDate() + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    // Request bytes straight to the primitive record through TransactionJsonCodec.
+    @Benchmark
+    public RuleEngine.Decision compactPath() {
+        return ruleEngine.evaluate(codec.readTransaction(nextRequest()));
+    }
+
+    // Request bytes bound to the JPA entity first, with its Strings, enums and LocalDateTime, then packed.
+    @Benchmark
+    public RuleEngine.Decision entityPath() throws IOException {
+        Transaction transaction = objectMapper.readValue(nextRequest(), Transaction.class);
+        return ruleEngine.evaluate(CompactTransaction.of(transaction));
+    }
+
+    private byte[] nextRequest() {
+        return requests[next++ & (REQUESTS - 1)];
+    }
+}
@@ -0,0 +1,60 @@
+package antifraud;
+
+import antifraud.user.AuthenticationCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+    private static final String USERNAME = "merchant";
+    private static final String PASSWORD = "secret";
+
+    private AuthenticationProvider uncached;
+    private AuthenticationProvider cached;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        UserDetails user = User.withUsername(USERNAME).password(passwordEncoder.encode(PASSWORD)).roles("MERCHANT").build();
+        UserDetailsService userDetailsService = username -> User.withUserDetails(user).build();
+
+        // Spring's stock provider: every request loads the user and pays for a BCrypt comparison.
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        uncached = provider;
+
+        cached = new SecurityConfig(null, new AuthenticationCache(300, 10_000), null)
+                .authenticationProvider(userDetailsService, passwordEncoder);
+        cached.authenticate(request());
+    }
+
+    @Benchmark
+    public Authentication bcrypt() {
+        return uncached.authenticate(request());
+    }
+
+    @Benchmark
+    public Authentication cachedCredential() {
+        return cached.authenticate(request());
+    }
+
+    private static Authentication request() {
+        return UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD);
+    }
+}
@@ -0,0 +1,58 @@
+package antifraud;
+
+import antifraud.fraud.FraudService;
+import antifraud.fraud.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = FeedbackBenchmark.BATCH_SIZE)
+@Measurement(iterations = 5, batchSize = FeedbackBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FeedbackBenchmark {
+    static final int BATCH_SIZE = 2_000;
+
+    private SeededContext context;
+    private FraudService fraudService;
+    private final long[] transactionIds = new long[BATCH_SIZE];
+    private final Transaction.Result[] feedbacks = new Transaction.Result[BATCH_SIZE];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SeededContext();
+        fraudService = context.fraudService();
+    }
+
+    @Setup(Level.Iteration)
+    public void scoreTransactions() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            fraudService.processTransaction(context.nextTransaction());
+        }
+
+        int[] row = {0};
+        context.getBean(JdbcTemplate.class).query("SELECT transaction_id, result FROM transactions ORDER BY transaction_id DESC LIMIT ?", resultSet -> {
+            transactionIds[row[0]] = resultSet.getLong(1);
+            feedbacks[row[0]] = Transaction.Result.ALLOWED.name().equals(resultSet.getString(2)) ? Transaction.Result.PROHIBITED : Transaction.Result.ALLOWED;
+            row[0]++;
+        }, BATCH_SIZE);
+
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction addFeedbackForTransaction() {
+        int i = next++;
+        return fraudService.addFeedbackForTransaction(transactionIds[i], feedbacks[i]);
+    }
+}
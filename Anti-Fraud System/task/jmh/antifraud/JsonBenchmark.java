@@ -0,0 +1,80 @@
+package antifraud;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private ObjectMapper objectMapper;
+    private TransactionJsonCodec codec;
+    private byte[] request;
+    private Transaction transaction;
+    private AntiFraudController.TransactionResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .indentOutput(true)
+                .build();
+        codec = new TransactionJsonCodec(objectMapper);
+        request = """
+                {"amount":150,"ip":"192.168.1.67","number":"4000008449433403","region":"EAP","date":"2026-01-22T16:04:00"}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        transaction = new Transaction();
+        transaction.setTransactionId(1_000_001);
+        transaction.setAmount(150);
+        transaction.setIp("192.168.1.67");
+        transaction.setNumber("4000008449433403");
+        transaction.setRegion(Transaction.Region.EAP);
+        transaction.setDate(LocalDateTime.of(2026, 1, 22, 16, 4));
+        transaction.setResult(Transaction.Result.ALLOWED);
+
+        response = new AntiFraudController.TransactionResponse("MANUAL_PROCESSING", "amount, ip-correlation");
+    }
+
+    @Benchmark
+    public Transaction readTransaction() throws IOException {
+        return objectMapper.readValue(request, Transaction.class);
+    }
+
+    @Benchmark
+    public byte[] writeTransaction() throws IOException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] writeTransactionResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public CompactTransaction readTransactionStreaming() {
+        return codec.readTransaction(request);
+    }
+
+    @Benchmark
+    public byte[] writeTransactionStreaming() {
+        return codec.writeTransaction(transaction);
+    }
+
+    @Benchmark
+    public byte[] writeTransactionResponseStreaming() {
+        return codec.writeResponse(response);
+    }
+}
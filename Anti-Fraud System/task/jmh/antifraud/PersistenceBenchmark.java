@@ -0,0 +1,65 @@
+package antifraud;
+
+import antifraud.fraud.Transaction;
+import antifraud.fraud.TransactionRepository;
+import antifraud.fraud.TransactionWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    static final int BATCH_SIZE = 50;
+
+    private SeededContext context;
+    private TransactionRepository transactionRepository;
+    private TransactionWriter transactionWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SeededContext();
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionWriter = context.getBean(TransactionWriter.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    // Saves once to get an id for the correlation queries, then again with the result.
+    @Benchmark
+    public Transaction doubleSave() {
+        Transaction transaction = transactionRepository.save(context.nextTransaction().toEntity(null));
+        transaction.setResult(Transaction.Result.ALLOWED);
+        return transactionRepository.save(transaction);
+    }
+
+    @Benchmark
+    public Transaction singleWrite() {
+        Transaction transaction = context.nextTransaction().toEntity(Transaction.Result.ALLOWED);
+        transactionWriter.write(transaction);
+        return transaction;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Transaction> batchWrite() {
+        List<Transaction> transactions = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            transactions.add(context.nextTransaction().toEntity(Transaction.Result.ALLOWED));
+        }
+
+        transactionWriter.writeAll(transactions);
+        return transactions;
+    }
+}
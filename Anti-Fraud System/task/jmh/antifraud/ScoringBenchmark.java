@@ -0,0 +1,42 @@
+package antifraud;
+
+import antifraud.fraud.FraudService;
+import antifraud.fraud.rules.RuleEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+    private SeededContext context;
+    private FraudService fraudService;
+    private RuleEngine ruleEngine;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SeededContext();
+        fraudService = context.fraudService();
+        ruleEngine = context.getBean(RuleEngine.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public AntiFraudController.TransactionResponse processTransaction() {
+        return fraudService.processTransaction(context.nextTransaction());
+    }
+
+    @Benchmark
+    public RuleEngine.Decision evaluateRules() {
+        return ruleEngine.evaluate(context.nextTransaction());
+    }
+}
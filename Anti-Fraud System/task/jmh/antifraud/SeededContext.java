@@ -0,0 +1,149 @@
+package antifraud;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.FraudService;
+import antifraud.fraud.Transaction;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SeededContext implements AutoCloseable {
+    static final int TRANSACTIONS = Integer.getInteger("antifraud.bench.transactions", 1_000_000);
+    static final int STOLEN_CARDS = 100_000;
+    static final int CLEAN_CARDS = 100_000;
+    static final int SUSPICIOUS_IPS = 10_000;
+    static final LocalDateTime SEEDED_FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    static final long SEEDED_SPACING_MILLIS = 2_500;
+
+    private static final Transaction.Region[] REGIONS = Transaction.Region.values();
+
+    private final Path directory;
+    private final String[] stolenCards;
+    private final String[] cleanCards;
+    private final AtomicLong next = new AtomicLong();
+    private final ConfigurableApplicationContext context;
+
+    public SeededContext() throws IOException {
+        this.directory = Files.createTempDirectory("antifraud-bench");
+        String[] cards = generateCardNumbers(STOLEN_CARDS + CLEAN_CARDS);
+        this.stolenCards = Arrays.copyOfRange(cards, 0, STOLEN_CARDS);
+        this.cleanCards = Arrays.copyOfRange(cards, STOLEN_CARDS, cards.length);
+
+        try (ConfigurableApplicationContext seeding = start()) {
+            seed(seeding.getBean(JdbcTemplate.class), cards);
+        }
+
+        this.context = start();
+    }
+
+    // Boots another application against the seeded database; close the shared context first so only one owns the journal.
+    public ConfigurableApplicationContext start(String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("service_db").toAbsolutePath(),
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=password",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.open-in-view=false",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(extraArguments));
+
+        return new SpringApplicationBuilder(AntiFraudApplication.class).run(arguments.toArray(String[]::new));
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public void closeApplication() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, String[] cards) {
+        List<Object[]> stolen = new ArrayList<>(STOLEN_CARDS);
+        List<Object[]> indexed = new ArrayList<>(cards.length);
+
+        for (int i = 0; i < cards.length; i++) {
+            if (i < STOLEN_CARDS) {
+                stolen.add(new Object[]{cards[i]});
+            }
+            indexed.add(new Object[]{i, cards[i]});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO cards (number) VALUES (?)", stolen);
+        jdbcTemplate.update("INSERT INTO ips (ip) SELECT CONCAT('10.', X / 256, '.', MOD(X, 256), '.1') FROM SYSTEM_RANGE(0, ?)", SUSPICIOUS_IPS - 1);
+
+        jdbcTemplate.execute("CREATE TABLE bench_cards (idx INT PRIMARY KEY, number VARCHAR(16) NOT NULL)");
+        jdbcTemplate.batchUpdate("INSERT INTO bench_cards (idx, number) VALUES (?, ?)", indexed);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_id, amount, ip, number, region, date, result, feedback)
+                SELECT X, MOD(X * 7919, 2000) + 1,
+                       CONCAT(MOD(X, 200) + 20, '.', MOD(X / 200, 256), '.', MOD(X / 51200, 256), '.7'),
+                       c.number,
+                       ARRAY['EAP', 'ECA', 'HIC', 'LAC', 'MENA', 'SA', 'SSA'][MOD(X, 7) + 1],
+                       DATEADD(MILLISECOND, X * ?, CAST(? AS TIMESTAMP)),
+                       CASE WHEN c.idx < ? OR MOD(X * 7919, 2000) >= 1500 THEN 'PROHIBITED'
+                            WHEN MOD(X * 7919, 2000) >= 200 THEN 'MANUAL_PROCESSING'
+                            ELSE 'ALLOWED' END,
+                       NULL
+                FROM SYSTEM_RANGE(1, ?)
+                JOIN bench_cards c ON c.idx = CASE WHEN MOD(X, 100) = 0 THEN MOD(X * 31, ?) ELSE ? + MOD(X * 31, ?) END
+                """, SEEDED_SPACING_MILLIS, SEEDED_FROM, STOLEN_CARDS, TRANSACTIONS, STOLEN_CARDS, STOLEN_CARDS, CLEAN_CARDS);
+        jdbcTemplate.execute("DROP TABLE bench_cards");
+    }
+
+    private static String[] generateCardNumbers(int count) {
+        String[] numbers = new String[count];
+        long base = 400000000000000L;
+
+        for (int i = 0; i < count; base++) {
+            for (int checkDigit = 1; checkDigit <= 9; checkDigit++) {
+                String number = Long.toString(base) + checkDigit;
+
+                if (!AntiFraudController.checkCardNumberIsInvalid(number)) {
+                    numbers[i++] = number;
+                    break;
+                }
+            }
+        }
+
+        return numbers;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public FraudService fraudService() {
+        return context.getBean(FraudService.class);
+    }
+
+    public CompactTransaction nextTransaction() {
+        long n = next.getAndIncrement();
+        Transaction transaction = new Transaction();
+        transaction.setAmount(n * 7919 % 2000 + 1);
+        transaction.setIp(n % 100 == 0 ? "10." + n % 39 + '.' + n % 256 + ".1" : (n % 200 + 20) + "." + n % 256 + '.' + n / 256 % 256 + ".7");
+        transaction.setNumber(n % 100 == 1 ? stolenCards[(int) (n % STOLEN_CARDS)] : cleanCards[(int) (n * 31 % CLEAN_CARDS)]);
+        transaction.setRegion(REGIONS[(int) (n % REGIONS.length)]);
+        transaction.setDate(SEEDED_FROM.plusNanos((TRANSACTIONS * SEEDED_SPACING_MILLIS + n * 100) * 1_000_000));
+
+        return CompactTransaction.of(transaction);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
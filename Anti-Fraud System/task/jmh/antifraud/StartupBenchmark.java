@@ -0,0 +1,60 @@
+package antifraud;
+
+import antifraud.fraud.FraudService;
+import antifraud.fraud.SnapshotWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Time from booting a node on the seeded database to its first scored transaction, with and without the snapshot.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    private SeededContext context;
+    private String[] arguments;
+    private ConfigurableApplicationContext node;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SeededContext();
+        context.closeApplication();
+        arguments = new String[]{
+                "--antifraud.snapshot.enabled=" + snapshot,
+                "--antifraud.snapshot.path=" + context.directory().resolve("fraud.snapshot").toAbsolutePath()
+        };
+
+        if (snapshot) {
+            try (ConfigurableApplicationContext writer = context.start(arguments)) {
+                writer.getBean(SnapshotWriter.class).write();
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopNode() {
+        if (node != null) {
+            node.close();
+            node = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public AntiFraudController.TransactionResponse timeToFirstDecision() {
+        node = context.start(arguments);
+        return node.getBean(FraudService.class).processTransaction(context.nextTransaction());
+    }
+}
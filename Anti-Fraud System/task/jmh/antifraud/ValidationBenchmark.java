@@ -0,0 +1,38 @@
+package antifraud;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+    private String validCardNumber = "4000008449433403";
+    private String invalidCardNumber = "4000008449433402";
+    private String validIp = "192.168.1.67";
+    private String invalidIp = "192.168.256.67";
+
+    @Benchmark
+    public boolean validCardNumber() {
+        return AntiFraudController.checkCardNumberIsInvalid(validCardNumber);
+    }
+
+    @Benchmark
+    public boolean invalidCardNumber() {
+        return AntiFraudController.checkCardNumberIsInvalid(invalidCardNumber);
+    }
+
+    @Benchmark
+    public boolean validIp() {
+        return AntiFraudController.checkIPIsInvalid(validIp);
+    }
+
+    @Benchmark
+    public boolean invalidIp() {
+        return AntiFraudController.checkIPIsInvalid(invalidIp);
+    }
+}
@@ -0,0 +1,67 @@
+package antifraud.fraud;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IpRangeTrieBenchmark {
+    private static final int PROBES = 1 << 16;
+
+    @Param({"1000", "1000000"})
+    private int ranges;
+
+    private IpRangeTrie trie;
+    private int[] hits;
+    private int[] misses;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] networks = new int[ranges];
+        int[] lengths = new int[ranges];
+        trie = new IpRangeTrie();
+
+        // Prefix lengths between /16 and /32, so 1M ranges cover a small share of the address space and misses stay misses.
+        while (trie.size() < ranges) {
+            int length = 16 + random.nextInt(17);
+            int network = random.nextInt() & (int) (0xFFFFFFFFL << (32 - length));
+
+            if (trie.add(network, length)) {
+                networks[trie.size() - 1] = network;
+                lengths[trie.size() - 1] = length;
+            }
+        }
+
+        hits = new int[PROBES];
+        misses = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int range = random.nextInt(ranges);
+            int hostBits = 32 - lengths[range];
+            hits[i] = networks[range] | (hostBits == 0 ? 0 : random.nextInt() >>> lengths[range]);
+
+            int miss;
+            do {
+                miss = random.nextInt();
+            } while (trie.longestMatch(miss) >= 0);
+            misses[i] = miss;
+        }
+    }
+
+    @Benchmark
+    public int lookupHit() {
+        return trie.longestMatch(hits[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public int lookupMiss() {
+        return trie.longestMatch(misses[next++ & (PROBES - 1)]);
+    }
+}
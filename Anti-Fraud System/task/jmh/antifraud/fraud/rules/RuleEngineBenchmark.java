@@ -0,0 +1,64 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleEngineBenchmark {
+    private static final String[] REASONS = {"amount", "card-number", "ip", "ip-correlation", "region-correlation"};
+
+    // Simulated round trip per rule to the storage behind it; 0 measures the fan-out overhead alone.
+    @Param({"0", "200", "1000"})
+    public long storageLatencyMicros;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private RuleEngine ruleEngine;
+    private CompactTransaction transaction;
+
+    @Setup
+    public void setUp() {
+        List<Rule> rules = new ArrayList<>(REASONS.length);
+
+        for (int i = 0; i < REASONS.length; i++) {
+            rules.add(new SlowRule(REASONS[i], i, TimeUnit.MICROSECONDS.toNanos(storageLatencyMicros)));
+        }
+
+        ruleEngine = new RuleEngine(rules, null, null, new SimpleMeterRegistry(), true, parallel, 1_000, Transaction.Result.MANUAL_PROCESSING);
+        transaction = new CompactTransaction(4000008449433403L, 0x0A000001, (byte) 0, 0, 100);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ruleEngine.shutdown();
+    }
+
+    @Benchmark
+    public RuleEngine.Decision evaluate() {
+        return ruleEngine.evaluate(transaction);
+    }
+
+    private record SlowRule(String reason, int cost, long latencyNanos) implements Rule {
+        @Override
+        public Transaction.Result evaluate(RuleContext context) {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+
+            return Transaction.Result.ALLOWED;
+        }
+    }
+}
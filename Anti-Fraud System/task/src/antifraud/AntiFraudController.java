@@ -1,91 +1,357 @@
 package antifraud;
 
+import antifraud.cluster.ClusterClient;
+import antifraud.cluster.ClusterTopology;
+import antifraud.exceptions.ClusterNodeUnavailableException;
+import antifraud.fraud.BlacklistTransfer;
 import antifraud.fraud.Card;
+import antifraud.fraud.CompactTransaction;
 import antifraud.fraud.FraudService;
 import antifraud.fraud.IP;
+import antifraud.fraud.Identifiers;
 import antifraud.fraud.Transaction;
 import antifraud.user.User;
 import antifraud.user.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 @RestController
 public class AntiFraudController {
+    private static final TransactionResponse INVALID_TRANSACTION_RESPONSE = new TransactionResponse("INVALID", "none");
+    private static final TransactionResponse UNAVAILABLE_TRANSACTION_RESPONSE = new TransactionResponse("UNAVAILABLE", "none");
+    private static final int MAX_REPORTED_REJECTS = 100;
     private final UserService userService;
     private final FraudService fraudService;
-
-    public AntiFraudController(UserService userService, FraudService fraudService) {
+    private final TransactionJsonCodec transactionJsonCodec;
+    private final ClusterTopology clusterTopology;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+    private final int maxPageSize;
+    private final ObjectWriter ndjsonWriter;
+
+    public AntiFraudController(UserService userService, FraudService fraudService, TransactionJsonCodec transactionJsonCodec,
+                               ClusterTopology clusterTopology, ClusterClient clusterClient, ObjectMapper objectMapper,
+                               @Value("${antifraud.batch.max-size:10000}") int maxBatchSize,
+                               @Value("${antifraud.history.max-page-size:1000}") int maxPageSize) {
         this.userService = userService;
         this.fraudService = fraudService;
+        this.transactionJsonCodec = transactionJsonCodec;
+        this.clusterTopology = clusterTopology;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPageSize = maxPageSize;
+        this.ndjsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    static boolean checkIPIsInvalid(String ip) {
+        return Identifiers.parseIp(ip) == Identifiers.INVALID;
     }
 
-    private boolean checkIPIsInvalid(String ip) {
-        String[] ipParts = ip.split("\\.");
+    // The spelling an address or CIDR block is stored and looked up under, or null if it is invalid. It is rebuilt from the
+    // packed value, so leading zeros are dropped and a /32 block is the plain address.
+    private static String canonicalIPRange(String range) {
+        int slash = range.indexOf('/');
 
-        if (ipParts.length != 4) {
-            return true;
+        if (slash < 0) {
+            long packed = Identifiers.parseIp(range);
+            return packed == Identifiers.INVALID ? null : Identifiers.formatIp((int) packed);
         }
 
-        try {
-            if (Arrays.stream(ipParts).mapToInt(Integer::parseInt).anyMatch(ipPart -> ipPart < 0 || ipPart > 255)) {
-                return true;
+        long packedNetwork = Identifiers.parseIp(range, 0, slash);
+        int digits = range.length() - slash - 1;
+
+        if (packedNetwork == Identifiers.INVALID || digits < 1 || digits > 2) {
+            return null;
+        }
+
+        int prefix = 0;
+
+        for (int i = slash + 1; i < range.length(); i++) {
+            char c = range.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return null;
             }
-        } catch (NumberFormatException e) {
-            return true;
+            prefix = prefix * 10 + (c - '0');
         }
 
-        return false;
+        if (prefix > 32) {
+            return null;
+        }
+
+        long hostMask = (1L << (32 - prefix)) - 1;
+
+        if ((packedNetwork & hostMask) != 0) {
+            return null;
+        }
+
+        String network = Identifiers.formatIp((int) packedNetwork);
+
+        return prefix == 32 ? network : network + "/" + prefix;
+    }
+
+    static boolean checkCardNumberIsInvalid(String number) {
+        return Identifiers.parseCardNumber(number) == Identifiers.INVALID;
     }
 
-    private boolean checkCardNumberIsInvalid(String number) {
-        if (number.length() != 16) {
-            return true;
+    // Line numbers count every physical line, blank ones included, so they point into the file the client sent.
+    private Stream<BulkEntry> bulkEntries(HttpServletRequest request, String field) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        long[] lineNumber = {0};
+        Stream<BulkEntry> lines = reader.lines().map(line -> new BulkEntry(++lineNumber[0], line)).filter(entry -> !entry.value().isBlank()).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        if (isNdjson(request.getContentType())) {
+            return lines.map(entry -> new BulkEntry(entry.line(), ndjsonField(entry.value(), field)));
         }
 
+        // A header row naming the column is allowed; only the first column of each row is read.
+        return lines.map(entry -> new BulkEntry(entry.line(), csvField(entry.value()))).filter(entry -> !entry.value().equalsIgnoreCase(field));
+    }
+
+    // A missing or unparsable content type is read as CSV, the format both bulk endpoints document first.
+    private static boolean isNdjson(String contentType) {
         try {
-            Long.parseLong(number);
-        } catch (NumberFormatException e) {
-            return true;
+            return contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
         }
+    }
 
-        int checkDigit = number.charAt(15) - '0';
-        int sum = 0;
-        for (int i = 14; i >= 0; i--) {
-            int digit = number.charAt(i) - '0';
-            if (i % 2 == 0) {
-                digit *= 2;
-            }
-            if (digit > 9) {
-                digit -= 9;
+    private static Stream<String> validated(Stream<BulkEntry> entries, UnaryOperator<String> validate, List<Long> rejectedLines) {
+        return entries.map(entry -> {
+            String value = entry.value() == null ? null : validate.apply(entry.value());
+
+            if (value == null && rejectedLines.size() < MAX_REPORTED_REJECTS) {
+                rejectedLines.add(entry.line());
             }
-            sum += digit;
+
+            return value;
+        });
+    }
+
+    private String ndjsonField(String line, String field) {
+        try {
+            JsonNode value = objectMapper.readTree(line).get(field);
+            return value != null && value.isTextual() ? value.asText() : null;
+        } catch (JsonProcessingException e) {
+            return null;
         }
+    }
+
+    private static String csvField(String line) {
+        int comma = line.indexOf(',');
+        String entry = (comma < 0 ? line : line.substring(0, comma)).strip();
+
+        return entry.length() >= 2 && entry.startsWith("\"") && entry.endsWith("\"") ? entry.substring(1, entry.length() - 1) : entry;
+    }
+
+    private boolean checkPageIsInvalid(int limit, long after) {
+        return limit < 1 || limit > maxPageSize || after < 0;
+    }
+
+    private <T> Consumer<T> ndjsonWriter(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
 
-        return 10 - (sum % 10) != checkDigit;
+        return value -> {
+            try {
+                response.getOutputStream().write(ndjsonWriter.writeValueAsBytes(value));
+                response.getOutputStream().write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    // Streams the rows as one JSON array without holding them; the bracket is only opened with the first row so an
+    // exception thrown before any output still produces a clean error response.
+    private void writeJsonArray(HttpServletResponse response, Consumer<Consumer<Transaction>> source) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        boolean[] opened = {false};
+
+        source.accept(transaction -> {
+            try {
+                response.getOutputStream().write(opened[0] ? ',' : '[');
+                response.getOutputStream().write(ndjsonWriter.writeValueAsBytes(transaction));
+                opened[0] = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        if (!opened[0]) {
+            response.getOutputStream().write('[');
+        }
+        response.getOutputStream().write(']');
     }
 
     @PostMapping("api/antifraud/transaction")
-    public ResponseEntity<TransactionResponse> processTransaction(@Valid @RequestBody Transaction transaction) {
-        if (transaction.getAmount() <= 0 || checkIPIsInvalid(transaction.getIp()) || checkCardNumberIsInvalid(transaction.getNumber())) {
+    public ResponseEntity<byte[]> processTransaction(@RequestBody byte[] body) {
+        CompactTransaction transaction = transactionJsonCodec.readTransaction(body);
+
+        if (transaction == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int owner = clusterTopology.ownerOfCard(transaction.number());
+
+        if (!clusterTopology.isLocal(owner)) {
+            return clusterClient.forward(owner, "POST", "/internal/cluster/transaction", body);
+        }
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(transactionJsonCodec.writeResponse(fraudService.processTransaction(transaction)));
+    }
+
+    // Items are validated one by one with the same rules as the single endpoint. An invalid item does not fail the
+    // batch; it gets {"result": "INVALID", "info": "none"} at its position. Only a body that is not a JSON array is a 400.
+    // In cluster mode an item whose owning node could not score it gets {"result": "UNAVAILABLE", "info": "none"} instead
+    // of failing items other nodes already committed; a timed out node may still have scored it, so retry with care.
+    @PostMapping("api/antifraud/transaction/batch")
+    public ResponseEntity<List<TransactionResponse>> processTransactions(@RequestBody byte[] body) {
+        List<CompactTransaction> transactions = transactionJsonCodec.readTransactions(body);
+
+        if (transactions == null || transactions.isEmpty() || transactions.size() > maxBatchSize) {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(fraudService.processTransaction(transaction));
+        List<CompactTransaction> validTransactions = new ArrayList<>(transactions.size());
+
+        for (CompactTransaction transaction : transactions) {
+            if (transaction != null) {
+                validTransactions.add(transaction);
+            }
+        }
+
+        Iterator<TransactionResponse> scored = (clusterTopology.isEnabled() ? processAcrossCluster(validTransactions) : fraudService.processTransactions(validTransactions)).iterator();
+        List<TransactionResponse> responses = new ArrayList<>(transactions.size());
+
+        for (CompactTransaction transaction : transactions) {
+            responses.add(transaction == null ? INVALID_TRANSACTION_RESPONSE : scored.next());
+        }
+
+        return ResponseEntity.ok(responses);
+    }
+
+    private List<TransactionResponse> processAcrossCluster(List<CompactTransaction> transactions) {
+        Map<Integer, List<Integer>> indexesByOwner = new TreeMap<>();
+
+        for (int i = 0; i < transactions.size(); i++) {
+            indexesByOwner.computeIfAbsent(clusterTopology.ownerOfCard(transactions.get(i).number()), owner -> new ArrayList<>()).add(i);
+        }
+
+        Map<Integer, CompletableFuture<ResponseEntity<byte[]>>> forwarded = new HashMap<>();
+
+        indexesByOwner.forEach((owner, indexes) -> {
+            if (!clusterTopology.isLocal(owner)) {
+                byte[] batch = transactionJsonCodec.writeTransactions(indexes.stream().map(transactions::get).toList());
+                forwarded.put(owner, clusterClient.forwardAsync(owner, "POST", "/internal/cluster/transaction/batch", batch));
+            }
+        });
+
+        TransactionResponse[] responses = new TransactionResponse[transactions.size()];
+
+        for (Map.Entry<Integer, CompletableFuture<ResponseEntity<byte[]>>> entry : forwarded.entrySet()) {
+            List<Integer> indexes = indexesByOwner.get(entry.getKey());
+            TransactionResponse[] scored = readPeerResponses(entry.getValue(), indexes.size());
+
+            for (int i = 0; i < indexes.size(); i++) {
+                responses[indexes.get(i)] = scored == null ? UNAVAILABLE_TRANSACTION_RESPONSE : scored[i];
+            }
+        }
+
+        List<Integer> local = indexesByOwner.get(clusterTopology.nodeId());
+
+        if (local != null) {
+            List<TransactionResponse> scored;
+
+            try {
+                scored = fraudService.processTransactions(local.stream().map(transactions::get).toList());
+            } catch (RuntimeException e) {
+                // Peer items are committed by now; a local failure only fails the local items.
+                if (forwarded.isEmpty()) {
+                    throw e;
+                }
+                scored = null;
+            }
+
+            for (int i = 0; i < local.size(); i++) {
+                responses[local.get(i)] = scored == null ? UNAVAILABLE_TRANSACTION_RESPONSE : scored.get(i);
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    private TransactionResponse[] readPeerResponses(CompletableFuture<ResponseEntity<byte[]>> future, int expected) {
+        try {
+            ResponseEntity<byte[]> response = ClusterClient.join(future);
+
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return null;
+            }
+
+            TransactionResponse[] scored = objectMapper.readValue(response.getBody(), TransactionResponse[].class);
+            return scored.length == expected ? scored : null;
+        } catch (ClusterNodeUnavailableException | IOException e) {
+            return null;
+        }
     }
 
     @PutMapping("api/antifraud/transaction")
-    public ResponseEntity<Transaction> updateTransaction(@RequestBody TransactionFeedbackRequest request) {
-        if (!request.feedback.matches("(ALLOWED)|(MANUAL_PROCESSING)|(PROHIBITED)")) {
+    public ResponseEntity<byte[]> updateTransaction(@RequestBody byte[] body) {
+        TransactionFeedbackRequest request = transactionJsonCodec.readFeedback(body);
+
+        if (request == null) {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(fraudService.addFeedbackForTransaction(request.transactionId, Transaction.Result.valueOf(request.feedback)));
+        int owner = clusterTopology.ownerOfTransaction(request.transactionId());
+
+        if (!clusterTopology.isLocal(owner)) {
+            return clusterClient.forward(owner, "PUT", "/internal/cluster/transaction", body);
+        }
+
+        Transaction transaction = fraudService.addFeedbackForTransaction(request.transactionId(), request.feedback());
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(transactionJsonCodec.writeTransaction(transaction));
     }
 
     @PostMapping("api/auth/user")
@@ -95,6 +361,13 @@ public class AntiFraudController {
         return new ResponseEntity<>(user.toResponse(), HttpStatus.CREATED);
     }
 
+    @PostMapping("api/auth/token")
+    public ResponseEntity<TokenResponse> issueToken(Principal principal) {
+        String token = userService.issueToken(principal.getName());
+
+        return ResponseEntity.ok(new TokenResponse(token, "Bearer", userService.getTokenTtlSeconds()));
+    }
+
     @GetMapping("api/auth/list")
     public ResponseEntity<List<UserResponse>> listUsers() {
         return ResponseEntity.ok(userService.getUsers().stream().map(User::toResponse).toList());
@@ -128,32 +401,66 @@ public class AntiFraudController {
 
     @PostMapping("api/antifraud/suspicious-ip")
     public ResponseEntity<SuspiciousIpResponse> addSuspiciousIp(@Valid @RequestBody SuspiciousIpRequest request) {
-        if (checkIPIsInvalid(request.ip)) {
+        String range = canonicalIPRange(request.ip);
+
+        if (range == null) {
             return ResponseEntity.badRequest().build();
         }
 
-        IP suspiciousIp = fraudService.addSuspiciousIp(request.ip);
+        IP suspiciousIp = fraudService.addSuspiciousIp(range);
 
         return ResponseEntity.ok(new SuspiciousIpResponse(suspiciousIp.getId(), suspiciousIp.getIp()));
     }
 
+    @PostMapping("api/antifraud/suspicious-ip/bulk")
+    public ResponseEntity<BulkImportResponse> importSuspiciousIps(HttpServletRequest request) throws IOException {
+        List<Long> rejectedLines = new ArrayList<>();
+
+        try (Stream<BulkEntry> entries = bulkEntries(request, "ip")) {
+            BlacklistTransfer.ImportResult result = fraudService.importSuspiciousIps(validated(entries, AntiFraudController::canonicalIPRange, rejectedLines));
+
+            return ResponseEntity.ok(new BulkImportResponse(result.added(), result.duplicate(), result.invalid(), rejectedLines));
+        }
+    }
+
     @GetMapping("api/antifraud/suspicious-ip")
     public ResponseEntity<List<IP>> getSuspiciousIPs() {
         return ResponseEntity.ok(fraudService.getSuspiciousIPs());
     }
 
+    @GetMapping(value = "api/antifraud/suspicious-ip", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamSuspiciousIps(HttpServletResponse response) {
+        fraudService.streamSuspiciousIps(ndjsonWriter(response));
+    }
+
 
     @DeleteMapping("api/antifraud/suspicious-ip/{ip}")
     public ResponseEntity<StatusResponse> deleteSuspiciousIp(@PathVariable String ip) {
-        if (checkIPIsInvalid(ip)) {
+        String canonical = canonicalIPRange(ip);
+
+        if (canonical == null) {
             return ResponseEntity.badRequest().build();
         }
 
-        fraudService.deleteSuspiciousIP(ip);
+        fraudService.deleteSuspiciousIP(canonical);
 
         return ResponseEntity.ok(new StatusResponse("IP " + ip + " successfully removed!"));
     }
 
+    @DeleteMapping("api/antifraud/suspicious-ip/{ip}/{prefix}")
+    public ResponseEntity<StatusResponse> deleteSuspiciousIpRange(@PathVariable String ip, @PathVariable String prefix) {
+        String range = ip + "/" + prefix;
+        String canonical = canonicalIPRange(range);
+
+        if (canonical == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        fraudService.deleteSuspiciousIP(canonical);
+
+        return ResponseEntity.ok(new StatusResponse("IP " + range + " successfully removed!"));
+    }
+
     @PostMapping("api/antifraud/stolencard")
     public ResponseEntity<StolenCardResponse> addStolenCard(@Valid @RequestBody StolenCardRequest request) {
         if (checkCardNumberIsInvalid(request.number)) {
@@ -165,11 +472,28 @@ public class AntiFraudController {
         return ResponseEntity.ok(new StolenCardResponse(stolenCard.getId(), stolenCard.getNumber()));
     }
 
+    @PostMapping("api/antifraud/stolencard/bulk")
+    public ResponseEntity<BulkImportResponse> importStolenCards(HttpServletRequest request) throws IOException {
+        List<Long> rejectedLines = new ArrayList<>();
+
+        try (Stream<BulkEntry> entries = bulkEntries(request, "number")) {
+            BlacklistTransfer.ImportResult result = fraudService.importStolenCards(validated(entries,
+                    number -> checkCardNumberIsInvalid(number) ? null : number, rejectedLines));
+
+            return ResponseEntity.ok(new BulkImportResponse(result.added(), result.duplicate(), result.invalid(), rejectedLines));
+        }
+    }
+
     @GetMapping("api/antifraud/stolencard")
     public ResponseEntity<List<Card>> getStolenCards() {
         return ResponseEntity.ok(fraudService.getStolenCards());
     }
 
+    @GetMapping(value = "api/antifraud/stolencard", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamStolenCards(HttpServletResponse response) {
+        fraudService.streamStolenCards(ndjsonWriter(response));
+    }
+
     @DeleteMapping("api/antifraud/stolencard/{number}")
     public ResponseEntity<StatusResponse> deleteStolenCard(@PathVariable String number) {
         if (checkCardNumberIsInvalid(number)) {
@@ -182,17 +506,57 @@ public class AntiFraudController {
     }
 
     @GetMapping("api/antifraud/history")
-    public ResponseEntity<List<Transaction>> getTransactionsHistory() {
-        return ResponseEntity.ok(fraudService.getTransactions());
+    public ResponseEntity<List<Transaction>> getTransactionsHistory(@RequestParam(required = false) Integer limit, @RequestParam(defaultValue = "0") long after,
+                                                                    HttpServletResponse response) throws IOException {
+        if (limit == null && after >= 0) {
+            writeJsonArray(response, consumer -> fraudService.streamTransactions(after, consumer));
+            return null;
+        }
+
+        if (limit == null || checkPageIsInvalid(limit, after)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(fraudService.getTransactions(after, limit));
+    }
+
+    @GetMapping(value = "api/antifraud/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamTransactionsHistory(@RequestParam(defaultValue = "0") long after, HttpServletResponse response) throws IOException {
+        if (after < 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        fraudService.streamTransactions(after, ndjsonWriter(response));
     }
 
     @GetMapping("api/antifraud/history/{number}")
-    public ResponseEntity<List<Transaction>> getTransactionsForCardNumber(@PathVariable String number) {
+    public ResponseEntity<List<Transaction>> getTransactionsForCardNumber(@PathVariable String number, @RequestParam(required = false) Integer limit, @RequestParam(defaultValue = "0") long after,
+                                                                          HttpServletResponse response) throws IOException {
         if (checkCardNumberIsInvalid(number)) {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(fraudService.getTransactionsForNumber(number));
+        if (limit == null && after >= 0) {
+            writeJsonArray(response, consumer -> fraudService.streamTransactionsForNumber(number, after, consumer));
+            return null;
+        }
+
+        if (limit == null || checkPageIsInvalid(limit, after)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(fraudService.getTransactionsForNumber(number, after, limit));
+    }
+
+    @GetMapping(value = "api/antifraud/history/{number}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamTransactionsForCardNumber(@PathVariable String number, @RequestParam(defaultValue = "0") long after, HttpServletResponse response) throws IOException {
+        if (checkCardNumberIsInvalid(number) || after < 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        fraudService.streamTransactionsForNumber(number, after, ndjsonWriter(response));
     }
 
     public record TransactionResponse(String result, String info) {
@@ -201,6 +565,9 @@ public class AntiFraudController {
     public record UserResponse(long id, String name, String username, String role) {
     }
 
+    public record TokenResponse(String token, String type, long expiresIn) {
+    }
+
     public record DeleteUserResponse(String username, String status) {
     }
 
@@ -225,6 +592,13 @@ public class AntiFraudController {
     public record StolenCardResponse(long id, String number) {
     }
 
-    public record TransactionFeedbackRequest(long transactionId, String feedback) {
+    // rejectedLines holds the line numbers of the first invalid entries, at most MAX_REPORTED_REJECTS of them.
+    public record BulkImportResponse(long added, long duplicate, long invalid, List<Long> rejectedLines) {
+    }
+
+    private record BulkEntry(long line, String value) {
+    }
+
+    public record TransactionFeedbackRequest(long transactionId, Transaction.Result feedback) {
     }
 }
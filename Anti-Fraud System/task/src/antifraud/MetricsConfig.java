@@ -0,0 +1,68 @@
+package antifraud;
+
+import antifraud.cluster.ClusterClient;
+import antifraud.fraud.Blacklist;
+import antifraud.fraud.FraudService;
+import antifraud.fraud.LimitStore;
+import antifraud.fraud.ScoringShards;
+import antifraud.fraud.StreamIngestion;
+import antifraud.fraud.TransactionArchive;
+import antifraud.fraud.TransactionWriter;
+import antifraud.fraud.VelocityIndex;
+import antifraud.user.AuthenticationCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public MeterBinder antifraudGauges(AuthenticationCache authenticationCache, LimitStore limitStore, VelocityIndex velocityIndex,
+                                       Blacklist blacklist, TransactionWriter transactionWriter, TransactionArchive transactionArchive,
+                                       StreamIngestion streamIngestion, ScoringShards scoringShards, FraudService fraudService,
+                                       ClusterClient clusterClient) {
+        return registry -> {
+            Gauge.builder("antifraud.cache.size", authenticationCache, AuthenticationCache::size)
+                    .tag("cache", "authentication")
+                    .register(registry);
+            Gauge.builder("antifraud.cache.size", limitStore, LimitStore::cacheSize)
+                    .tag("cache", "limits")
+                    .register(registry);
+            Gauge.builder("antifraud.cache.size", velocityIndex, VelocityIndex::size)
+                    .tag("cache", "velocity")
+                    .register(registry);
+            Gauge.builder("antifraud.blacklist.size", blacklist, Blacklist::stolenCardCount)
+                    .tag("list", "stolen-cards")
+                    .register(registry);
+            Gauge.builder("antifraud.blacklist.size", blacklist, Blacklist::suspiciousIpCount)
+                    .tag("list", "suspicious-ips")
+                    .register(registry);
+            Gauge.builder("antifraud.blacklist.size", blacklist, Blacklist::suspiciousRangeCount)
+                    .tag("list", "suspicious-ranges")
+                    .register(registry);
+            Gauge.builder("antifraud.write-behind.queue.size", transactionWriter, TransactionWriter::queueSize)
+                    .register(registry);
+            Gauge.builder("antifraud.archive.segments", transactionArchive, TransactionArchive::segmentCount)
+                    .register(registry);
+            Gauge.builder("antifraud.archive.transactions", transactionArchive, TransactionArchive::archivedTransactionCount)
+                    .register(registry);
+            Gauge.builder("antifraud.shards.queue.size", scoringShards, ScoringShards::queueSize)
+                    .register(registry);
+            Gauge.builder("antifraud.stream.offset", streamIngestion, StreamIngestion::offset)
+                    .register(registry);
+            Gauge.builder("antifraud.stream.lag", streamIngestion, StreamIngestion::lag)
+                    .register(registry);
+            FunctionCounter.builder("antifraud.stream.failures", streamIngestion, StreamIngestion::failures)
+                    .register(registry);
+            FunctionCounter.builder("antifraud.stream.rejected", streamIngestion, StreamIngestion::rejected)
+                    .register(registry);
+            Gauge.builder("antifraud.cluster.replication.pending", clusterClient, ClusterClient::pendingReplications)
+                    .register(registry);
+            Gauge.builder("antifraud.startup.first-decision", fraudService, FraudService::firstDecisionMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+}
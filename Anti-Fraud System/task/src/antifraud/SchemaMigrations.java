@@ -0,0 +1,93 @@
+package antifraud;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class SchemaMigrations {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrations.class);
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern MIGRATION = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final List<ExpectedIndex> EXPECTED_INDEXES = List.of(
+            new ExpectedIndex("TRANSACTIONS", List.of("NUMBER", "DATE")),
+            new ExpectedIndex("TRANSACTIONS", List.of("DATE")),
+            new ExpectedIndex("CARDS", List.of("NUMBER")),
+            new ExpectedIndex("IPS", List.of("IP")),
+            new ExpectedIndex("USERS", List.of("USERNAME")),
+            new ExpectedIndex("LIMITS", List.of("NUMBER", "RESULT"))
+    );
+
+    public SchemaMigrations(EntityManagerFactory entityManagerFactory, DataSource dataSource, JdbcTemplate jdbcTemplate) throws IOException {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations (version INT PRIMARY KEY, description VARCHAR(255) NOT NULL, installed_on TIMESTAMP NOT NULL)");
+        Set<Integer> applied = new HashSet<>(jdbcTemplate.queryForList("SELECT version FROM schema_migrations", Integer.class));
+
+        for (Migration migration : findMigrations()) {
+            if (applied.contains(migration.version())) {
+                continue;
+            }
+
+            new ResourceDatabasePopulator(migration.script()).execute(dataSource);
+            jdbcTemplate.update("INSERT INTO schema_migrations (version, description, installed_on) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                    migration.version(), migration.description());
+            LOGGER.info("Applied schema migration V{} {}", migration.version(), migration.description());
+        }
+
+        findMissingIndexes(jdbcTemplate).forEach(index ->
+                LOGGER.warn("Missing index on {} ({}), queries on these columns will scan the whole table", index.table(), String.join(", ", index.columns())));
+    }
+
+    private static List<Migration> findMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher matcher = MIGRATION.matcher(Objects.requireNonNull(resource.getFilename()));
+
+            if (matcher.matches()) {
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), resource));
+            }
+        }
+
+        migrations.sort(Comparator.comparingInt(Migration::version));
+
+        return migrations;
+    }
+
+    private static List<ExpectedIndex> findMissingIndexes(JdbcTemplate jdbcTemplate) {
+        Map<String, List<List<String>>> indexes = new HashMap<>();
+        Map<String, List<String>> columnsByIndex = new LinkedHashMap<>();
+        Map<String, String> tableByIndex = new HashMap<>();
+
+        jdbcTemplate.query("SELECT table_name, index_name, column_name FROM information_schema.index_columns WHERE table_schema = 'PUBLIC' ORDER BY table_name, index_name, ordinal_position",
+                resultSet -> {
+                    String index = resultSet.getString("index_name");
+                    tableByIndex.put(index, resultSet.getString("table_name"));
+                    columnsByIndex.computeIfAbsent(index, key -> new ArrayList<>()).add(resultSet.getString("column_name"));
+                });
+
+        columnsByIndex.forEach((index, columns) -> indexes.computeIfAbsent(tableByIndex.get(index), key -> new ArrayList<>()).add(columns));
+
+        return EXPECTED_INDEXES.stream()
+                .filter(expected -> indexes.getOrDefault(expected.table(), List.of()).stream()
+                        .noneMatch(columns -> columns.size() >= expected.columns().size()
+                                && columns.subList(0, expected.columns().size()).equals(expected.columns())))
+                .toList();
+    }
+
+    private record Migration(int version, String description, Resource script) {
+    }
+
+    private record ExpectedIndex(String table, List<String> columns) {
+    }
+}
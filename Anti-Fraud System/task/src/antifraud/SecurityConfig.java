@@ -1,18 +1,28 @@
 package antifraud;
 
+import antifraud.user.AuthenticationCache;
+import antifraud.user.TokenService;
 import antifraud.user.User;
 import antifraud.user.UserRepository;
+import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -20,18 +30,27 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Configuration
 public class SecurityConfig {
     private static final String MERCHANT = User.Role.MERCHANT.name();
     private static final String ADMINISTRATOR = User.Role.ADMINISTRATOR.name();
     private static final String SUPPORT = User.Role.SUPPORT.name();
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final List<String> TOKEN_PATHS = List.of("/api/antifraud/transaction", "/api/antifraud/transaction/batch");
     private final UserRepository userRepository;
+    private final AuthenticationCache authenticationCache;
+    private final TokenService tokenService;
 
-    public SecurityConfig(UserRepository userRepository) {
+    public SecurityConfig(UserRepository userRepository, AuthenticationCache authenticationCache, TokenService tokenService) {
         this.userRepository = userRepository;
+        this.authenticationCache = authenticationCache;
+        this.tokenService = tokenService;
     }
 
     @Bean
@@ -39,6 +58,7 @@ public class SecurityConfig {
         AuthenticationEntryPoint restAuthenticationEntryPoint;
         return http
                 .httpBasic(Customizer.withDefaults())
+                .addFilterBefore(bearerTokenFilter(), BasicAuthenticationFilter.class)
                 .csrf(AbstractHttpConfigurer::disable)                           // For modifying requests via Postman
                 .exceptionHandling(handing -> handing
                         .authenticationEntryPoint(new AuthenticationEntryPoint() {
@@ -51,13 +71,16 @@ public class SecurityConfig {
                 .headers(headers -> headers.frameOptions().disable())           // for Postman, the H2 console
                 .authorizeHttpRequests(requests -> requests                     // manage access
                         .requestMatchers("/actuator/shutdown").permitAll()      // needs to run test
+                        .requestMatchers("/internal/cluster/**").permitAll()    // checked against the cluster secret
+                        .requestMatchers(HttpMethod.GET, "/actuator/rules", "/actuator/metrics", "/actuator/metrics/*", "/actuator/prometheus").hasAnyRole(ADMINISTRATOR, SUPPORT)
                         .requestMatchers(HttpMethod.POST, "/api/auth/user").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/token").hasRole(MERCHANT)
                         .requestMatchers(HttpMethod.GET, "/api/auth/list").hasAnyRole(ADMINISTRATOR, SUPPORT)
                         .requestMatchers(HttpMethod.DELETE, "/api/auth/user/*").hasRole(ADMINISTRATOR)
-                        .requestMatchers(HttpMethod.POST, "/api/antifraud/transaction").hasRole(MERCHANT)
+                        .requestMatchers(HttpMethod.POST, "/api/antifraud/transaction", "/api/antifraud/transaction/batch").hasRole(MERCHANT)
                         .requestMatchers(HttpMethod.PUT, "/api/auth/access", "/api/auth/role").hasRole(ADMINISTRATOR)
-                        .requestMatchers(HttpMethod.POST, "/api/antifraud/suspicious-ip", "/api/antifraud/stolencard").hasRole(SUPPORT)
-                        .requestMatchers(HttpMethod.DELETE, "/api/antifraud/suspicious-ip/*", "/api/antifraud/stolencard/*").hasRole(SUPPORT)
+                        .requestMatchers(HttpMethod.POST, "/api/antifraud/suspicious-ip", "/api/antifraud/stolencard", "/api/antifraud/suspicious-ip/bulk", "/api/antifraud/stolencard/bulk").hasRole(SUPPORT)
+                        .requestMatchers(HttpMethod.DELETE, "/api/antifraud/suspicious-ip/*", "/api/antifraud/suspicious-ip/*/*", "/api/antifraud/stolencard/*").hasRole(SUPPORT)
                         .requestMatchers(HttpMethod.GET, "/api/antifraud/suspicious-ip", "/api/antifraud/stolencard", "/api/antifraud/history/**").hasRole(SUPPORT)
                         .requestMatchers(HttpMethod.PUT, "/api/antifraud/transaction").hasRole(SUPPORT)
                 )
@@ -68,6 +91,59 @@ public class SecurityConfig {
                 .build();
     }
 
+    private OncePerRequestFilter bearerTokenFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+                String header = request.getHeader("Authorization");
+
+                if (header != null && header.startsWith(BEARER_PREFIX) && HttpMethod.POST.matches(request.getMethod())
+                        && TOKEN_PATHS.contains(request.getServletPath())) {
+                    TokenService.Token token = tokenService.verify(header.substring(BEARER_PREFIX.length()));
+
+                    if (token == null) {
+                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                        return;
+                    }
+
+                    SecurityContext context = SecurityContextHolder.createEmptyContext();
+                    context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(token.username(), null,
+                            List.of(new SimpleGrantedAuthority("ROLE_" + token.role().name()))));
+                    SecurityContextHolder.setContext(context);
+                }
+
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
+    @Bean
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+                String username = authentication.getName().toLowerCase();
+                String password = String.valueOf(authentication.getCredentials());
+                UserDetails user = authenticationCache.getVerifiedUser(username, password);
+
+                if (user != null) {
+                    return createSuccessAuthentication(user, authentication, user);
+                }
+
+                long generation = authenticationCache.generation();
+                Authentication result = super.authenticate(authentication);
+                authenticationCache.putVerifiedUser(username, password, (UserDetails) result.getPrincipal(), generation);
+
+                return result;
+            }
+        };
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(authenticationCache);
+
+        return provider;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,25 @@
+package antifraud;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ServerConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerConfig.class);
+
+    @Bean
+    @ConditionalOnProperty("antifraud.server.virtual-threads")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (VirtualThreads.isAvailable()) {
+                protocolHandler.setExecutor(VirtualThreads.newExecutor("http"));
+            } else {
+                LOGGER.warn("Virtual threads are not available on Java {}, keeping the default Tomcat thread pool", Runtime.version().feature());
+            }
+        };
+    }
+}
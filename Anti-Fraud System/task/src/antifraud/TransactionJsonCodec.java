@@ -0,0 +1,279 @@
+package antifraud;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.Identifiers;
+import antifraud.fraud.Transaction;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class TransactionJsonCodec {
+    private static final int MAX_CACHED_RESPONSES = 4096;
+    private static final Transaction.Result[] RESULTS = Transaction.Result.values();
+    private static final Transaction.Region[] REGIONS = Transaction.Region.values();
+    private static final byte INVALID_REGION = -2;
+
+    private final JsonFactory jsonFactory;
+    private final Map<AntiFraudController.TransactionResponse, byte[]> responses = new ConcurrentHashMap<>();
+
+    public TransactionJsonCodec(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+
+        for (Transaction.Result result : RESULTS) {
+            writeResponse(new AntiFraudController.TransactionResponse(result.name(), "none"));
+        }
+    }
+
+    public CompactTransaction readTransaction(byte[] body) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            CompactTransaction transaction = readObject(parser);
+
+            return parser.nextToken() == null ? transaction : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Returns null when the body is not a JSON array of objects; an element that fails validation is a null entry.
+    public List<CompactTransaction> readTransactions(byte[] body) {
+        List<CompactTransaction> transactions = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == JsonToken.START_OBJECT) {
+                    transactions.add(readObject(parser));
+                } else {
+                    parser.skipChildren();
+                    transactions.add(null);
+                }
+            }
+
+            return parser.nextToken() == null ? transactions : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static CompactTransaction readObject(JsonParser parser) throws IOException {
+        long amount = 0;
+        long number = Identifiers.INVALID;
+        long ip = Identifiers.INVALID;
+        byte region = CompactTransaction.NO_REGION;
+        LocalDateTime date = null;
+        boolean valid = true;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.VALUE_NULL) {
+                valid &= !field.equals("amount");
+                continue;
+            }
+
+            switch (field) {
+                case "amount" -> {
+                    // A fraction, a quoted number or a value beyond long range is rejected rather than coerced.
+                    boolean integral = value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER;
+                    amount = integral ? parser.getLongValue() : 0;
+                    valid &= integral;
+                }
+                case "ip" -> ip = value == JsonToken.VALUE_STRING ? Identifiers.parseIp(text(parser)) : Identifiers.INVALID;
+                case "number" -> number = value == JsonToken.VALUE_STRING ? Identifiers.parseCardNumber(text(parser)) : Identifiers.INVALID;
+                case "region" -> {
+                    region = region(parser);
+                    valid &= region != INVALID_REGION;
+                }
+                case "date" -> date = value == JsonToken.VALUE_STRING ? date(parser) : null;
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (!valid || amount <= 0 || number == Identifiers.INVALID || ip == Identifiers.INVALID || date == null) {
+            return null;
+        }
+
+        return new CompactTransaction(number, (int) ip, region, CompactTransaction.toMillis(date), amount);
+    }
+
+    // Compares the parser's buffer against the region names directly, so a valid region costs no String.
+    private static byte region(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return INVALID_REGION;
+        }
+
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        for (Transaction.Region region : REGIONS) {
+            String name = region.name();
+
+            if (name.length() == length && regionMatches(name, chars, offset)) {
+                return (byte) region.ordinal();
+            }
+        }
+
+        return INVALID_REGION;
+    }
+
+    private static boolean regionMatches(String name, char[] chars, int offset) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static LocalDateTime date(JsonParser parser) throws IOException {
+        try {
+            return LocalDateTime.parse(text(parser));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public AntiFraudController.TransactionFeedbackRequest readFeedback(byte[] body) {
+        long transactionId = 0;
+        Transaction.Result feedback = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+
+                switch (field) {
+                    case "transactionId" -> transactionId = parser.getValueAsLong();
+                    case "feedback" -> feedback = result(parser.getText());
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        return feedback == null ? null : new AntiFraudController.TransactionFeedbackRequest(transactionId, feedback);
+    }
+
+    public byte[] writeResponse(AntiFraudController.TransactionResponse response) {
+        byte[] body = responses.get(response);
+
+        if (body != null) {
+            return body;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("result", response.result());
+            generator.writeStringField("info", response.info());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        body = out.toByteArray();
+
+        if (responses.size() < MAX_CACHED_RESPONSES) {
+            responses.putIfAbsent(response, body);
+        }
+
+        return body;
+    }
+
+    public byte[] writeTransaction(Transaction transaction) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("transactionId", transaction.getTransactionId());
+            generator.writeNumberField("amount", transaction.getAmount());
+            generator.writeStringField("ip", transaction.getIp());
+            generator.writeStringField("number", transaction.getNumber());
+            generator.writeStringField("region", transaction.getRegion() == null ? null : transaction.getRegion().name());
+            generator.writeStringField("date", transaction.getDate() == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.getDate()));
+            generator.writeStringField("result", transaction.getResult() == null ? null : transaction.getResult().name());
+            generator.writeStringField("feedback", transaction.getFeedback() == null ? "" : transaction.getFeedback().name());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    public byte[] writeTransactions(List<CompactTransaction> transactions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 * transactions.size());
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartArray();
+            for (CompactTransaction transaction : transactions) {
+                generator.writeStartObject();
+                generator.writeNumberField("amount", transaction.amount());
+                generator.writeStringField("ip", Identifiers.formatIp(transaction.ip()));
+                generator.writeStringField("number", Identifiers.formatCardNumber(transaction.number()));
+                generator.writeStringField("region", transaction.regionOrNull() == null ? null : transaction.regionOrNull().name());
+                generator.writeStringField("date", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(transaction.date()));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static CharSequence text(JsonParser parser) throws IOException {
+        return CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static Transaction.Result result(String name) {
+        for (Transaction.Result result : RESULTS) {
+            if (result.name().equals(name)) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,195 @@
+package antifraud.cluster;
+
+import antifraud.exceptions.ClusterNodeUnavailableException;
+import antifraud.fraud.BlacklistBatch;
+import antifraud.fraud.BlacklistChange;
+import antifraud.fraud.LimitChange;
+import antifraud.user.UserChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ClusterClient {
+    static final String SECRET_HEADER = "X-Cluster-Secret";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterClient.class);
+
+    private final ClusterTopology topology;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final int replicationAttempts;
+    private final Map<Integer, ThreadPoolExecutor> replicators = new HashMap<>();
+
+    public ClusterClient(ClusterTopology topology, ObjectMapper objectMapper,
+                         @Value("${antifraud.cluster.timeout-ms:2000}") long timeoutMillis,
+                         @Value("${antifraud.cluster.replication-attempts:10}") int replicationAttempts) {
+        this.topology = topology;
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.replicationAttempts = replicationAttempts;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).version(HttpClient.Version.HTTP_1_1).build();
+
+        if (!topology.isEnabled()) {
+            return;
+        }
+
+        for (int peer : topology.peers()) {
+            replicators.put(peer, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "cluster-replication-" + peer);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    public ResponseEntity<byte[]> forward(int node, String method, String path, byte[] body) {
+        return join(forwardAsync(node, method, path, body));
+    }
+
+    public CompletableFuture<ResponseEntity<byte[]>> forwardAsync(int node, String method, String path, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(topology.address(node).resolve(path))
+                .timeout(timeout)
+                .header(SECRET_HEADER, topology.secret())
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> ResponseEntity.status(response.statusCode())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(response.body()));
+    }
+
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new ClusterNodeUnavailableException();
+        }
+    }
+
+    @EventListener
+    public void onBlacklistChange(BlacklistChange change) {
+        replicate(new ReplicationMessage(List.of(change), null, null));
+    }
+
+    @EventListener
+    public void onBlacklistBatch(BlacklistBatch batch) {
+        replicate(new ReplicationMessage(batch.changes(), null, null));
+    }
+
+    @EventListener
+    public void onLimitChange(LimitChange change) {
+        replicate(new ReplicationMessage(null, change, null));
+    }
+
+    @EventListener
+    public void onUserChange(UserChange change) {
+        replicate(new ReplicationMessage(null, null, change));
+    }
+
+    private void replicate(ReplicationMessage message) {
+        if (!topology.isEnabled()) {
+            return;
+        }
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        replicators.forEach((peer, replicator) -> replicator.execute(() -> send(peer, body)));
+    }
+
+    public int pendingReplications() {
+        int pending = 0;
+
+        for (ThreadPoolExecutor replicator : replicators.values()) {
+            pending += replicator.getQueue().size() + replicator.getActiveCount();
+        }
+
+        return pending;
+    }
+
+    // Changes are never dropped while this node runs: a later change may depend on an earlier one, so the peer's
+    // replicator keeps retrying in order and only raises the alarm once replicationAttempts have failed.
+    private void send(int peer, byte[] body) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(topology.address(peer).resolve("/internal/cluster/replicate"))
+                        .timeout(timeout)
+                        .header(SECRET_HEADER, topology.secret())
+                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+
+                if (response.statusCode() / 100 == 2) {
+                    if (attempt > replicationAttempts) {
+                        LOGGER.info("Replication to node {} ({}) recovered after {} attempts", peer, topology.address(peer), attempt);
+                    }
+                    return;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Replicating to node {} failed on attempt {}", peer, attempt, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (attempt == replicationAttempts) {
+                LOGGER.error("Replicating to node {} ({}) failed {} times, {} changes are queued for it; still retrying",
+                        peer, topology.address(peer), attempt, replicators.get(peer).getQueue().size() + 1);
+            }
+
+            try {
+                Thread.sleep(Math.min(30_000L, 100L << Math.min(attempt, 8)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor replicator : replicators.values()) {
+            replicator.shutdown();
+        }
+        for (Map.Entry<Integer, ThreadPoolExecutor> entry : replicators.entrySet()) {
+            ThreadPoolExecutor replicator = entry.getValue();
+
+            if (!replicator.awaitTermination(5, TimeUnit.SECONDS)) {
+                int undelivered = replicator.shutdownNow().size() + 1;
+                LOGGER.error("{} changes were not replicated to node {} ({}) before shutdown; its blacklist and limits may now differ from this node's",
+                        undelivered, entry.getKey(), topology.address(entry.getKey()));
+            }
+        }
+    }
+
+    public record ReplicationMessage(List<BlacklistChange> blacklist, LimitChange limit, UserChange user) {
+    }
+}
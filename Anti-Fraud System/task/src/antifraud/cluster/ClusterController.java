@@ -0,0 +1,107 @@
+package antifraud.cluster;
+
+import antifraud.AntiFraudController;
+import antifraud.TransactionJsonCodec;
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.FraudService;
+import antifraud.fraud.LimitStore;
+import antifraud.fraud.Transaction;
+import antifraud.user.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+@RestController
+public class ClusterController {
+    private final ClusterTopology topology;
+    private final FraudService fraudService;
+    private final LimitStore limitStore;
+    private final TransactionJsonCodec transactionJsonCodec;
+    private final UserService userService;
+
+    public ClusterController(ClusterTopology topology, FraudService fraudService, LimitStore limitStore, TransactionJsonCodec transactionJsonCodec,
+                             UserService userService) {
+        this.topology = topology;
+        this.fraudService = fraudService;
+        this.limitStore = limitStore;
+        this.transactionJsonCodec = transactionJsonCodec;
+        this.userService = userService;
+    }
+
+    private boolean checkSecretIsInvalid(String secret) {
+        return !topology.isEnabled() || secret == null
+                || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), topology.secret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @PostMapping("internal/cluster/transaction")
+    public ResponseEntity<byte[]> processTransaction(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret, @RequestBody byte[] body) {
+        if (checkSecretIsInvalid(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        CompactTransaction transaction = transactionJsonCodec.readTransaction(body);
+
+        if (transaction == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(transactionJsonCodec.writeResponse(fraudService.processTransaction(transaction)));
+    }
+
+    @PostMapping("internal/cluster/transaction/batch")
+    public ResponseEntity<List<AntiFraudController.TransactionResponse>> processTransactions(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                                                                            @RequestBody byte[] body) {
+        if (checkSecretIsInvalid(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<CompactTransaction> transactions = transactionJsonCodec.readTransactions(body);
+
+        if (transactions == null || transactions.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(fraudService.processTransactions(transactions));
+    }
+
+    @PutMapping("internal/cluster/transaction")
+    public ResponseEntity<byte[]> updateTransaction(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret, @RequestBody byte[] body) {
+        if (checkSecretIsInvalid(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        AntiFraudController.TransactionFeedbackRequest request = transactionJsonCodec.readFeedback(body);
+
+        if (request == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Transaction transaction = fraudService.addFeedbackForTransaction(request.transactionId(), request.feedback());
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(transactionJsonCodec.writeTransaction(transaction));
+    }
+
+    @PostMapping("internal/cluster/replicate")
+    public ResponseEntity<Void> replicate(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret, @RequestBody ClusterClient.ReplicationMessage message) {
+        if (checkSecretIsInvalid(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (message.blacklist() != null) {
+            message.blacklist().forEach(fraudService::applyBlacklistChange);
+        }
+        if (message.limit() != null) {
+            limitStore.applyLimitChange(message.limit());
+        }
+        if (message.user() != null) {
+            userService.applyUserChange(message.user());
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+}
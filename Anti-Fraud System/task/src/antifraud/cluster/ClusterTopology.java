@@ -0,0 +1,105 @@
+package antifraud.cluster;
+
+import antifraud.fraud.TransactionSequence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class ClusterTopology {
+    private static final int VIRTUAL_NODES = 128;
+
+    private final boolean enabled;
+    private final int nodeId;
+    private final List<URI> nodes;
+    private final String secret;
+    private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+    public ClusterTopology(@Value("${antifraud.cluster.enabled:false}") boolean enabled,
+                           @Value("${antifraud.cluster.node-id:0}") int nodeId,
+                           @Value("${antifraud.cluster.nodes:}") String nodes,
+                           @Value("${antifraud.cluster.secret:}") String secret) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.nodes = Arrays.stream(nodes.split(",")).map(String::trim).filter(node -> !node.isEmpty()).map(URI::create).toList();
+        this.secret = secret;
+
+        if (!enabled) {
+            return;
+        }
+
+        if (nodeId < 0 || nodeId >= this.nodes.size()) {
+            throw new IllegalStateException("antifraud.cluster.node-id " + nodeId + " is not an index into antifraud.cluster.nodes " + this.nodes);
+        }
+        if (this.nodes.size() > 1 << (63 - TransactionSequence.NODE_ID_SHIFT)) {
+            throw new IllegalStateException("At most " + (1 << (63 - TransactionSequence.NODE_ID_SHIFT)) + " cluster nodes are supported");
+        }
+        if (secret.isEmpty()) {
+            throw new IllegalStateException("antifraud.cluster.secret must be set when clustering is enabled");
+        }
+
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int replica = 0; replica < VIRTUAL_NODES; replica++) {
+                ring.put(hash((long) node << 32 | replica), node);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int nodeId() {
+        return nodeId;
+    }
+
+    public String secret() {
+        return secret;
+    }
+
+    public int ownerOfCard(long number) {
+        if (!enabled) {
+            return nodeId;
+        }
+
+        Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(number));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    public int ownerOfTransaction(long transactionId) {
+        long owner = transactionId >>> TransactionSequence.NODE_ID_SHIFT;
+        return enabled && owner < nodes.size() ? (int) owner : nodeId;
+    }
+
+    public boolean isLocal(int node) {
+        return node == nodeId;
+    }
+
+    public URI address(int node) {
+        return nodes.get(node);
+    }
+
+    public List<Integer> peers() {
+        List<Integer> peers = new ArrayList<>(nodes.size());
+
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node != nodeId) {
+                peers.add(node);
+            }
+        }
+
+        return peers;
+    }
+
+    private static int hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (key ^ (key >>> 33));
+    }
+}
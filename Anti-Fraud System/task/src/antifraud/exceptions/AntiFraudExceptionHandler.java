@@ -23,6 +23,11 @@ public class AntiFraudExceptionHandler extends ResponseEntityExceptionHandler {
     public void handleUserAlreadyHasRole() {
     }
 
+    @ExceptionHandler(UserLockedException.class)
+    @ResponseStatus(value = HttpStatus.UNAUTHORIZED)
+    public void handleUserLocked() {
+    }
+
     @ExceptionHandler(AdminAccessChangeException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public void handleAdminAccessChange() {
@@ -67,5 +72,24 @@ public class AntiFraudExceptionHandler extends ResponseEntityExceptionHandler {
     @ResponseStatus(value = HttpStatus.NOT_FOUND)
     public void handleTransactionsNotFound() {
     }
-}
 
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleWriteBehindQueueFull() {
+    }
+
+    @ExceptionHandler(WriteBehindFlushTimeoutException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleWriteBehindFlushTimeout() {
+    }
+
+    @ExceptionHandler(ScoringQueueFullException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleScoringQueueFull() {
+    }
+
+    @ExceptionHandler(ClusterNodeUnavailableException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleClusterNodeUnavailable() {
+    }
+}
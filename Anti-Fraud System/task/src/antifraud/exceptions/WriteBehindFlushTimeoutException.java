@@ -0,0 +1,4 @@
+package antifraud.exceptions;
+
+public class WriteBehindFlushTimeoutException extends RuntimeException {
+}
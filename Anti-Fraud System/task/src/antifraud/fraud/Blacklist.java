@@ -0,0 +1,131 @@
+package antifraud.fraud;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+@Component
+public class Blacklist {
+    private final ConcurrentLongSet stolenCards = new ConcurrentLongSet();
+    private final ConcurrentLongSet suspiciousIps = new ConcurrentLongSet();
+    private final IpRangeTrie suspiciousRanges = new IpRangeTrie();
+
+    public Blacklist(CardRepository cardRepository, IPRepository ipRepository, SnapshotStore snapshotStore) {
+        FraudSnapshot snapshot = snapshotStore.loaded();
+        List<Card> newCards = snapshot == null ? null : cardRepository.findAllByIdGreaterThan(snapshot.maxCardId());
+
+        if (newCards != null && snapshot.stolenCardCount() + newCards.size() == cardRepository.count()) {
+            snapshot.forEachStolenCard(stolenCards::add);
+            newCards.forEach(card -> addStolenCard(card.getNumber()));
+        } else {
+            for (Card card : cardRepository.findAll()) {
+                addStolenCard(card.getNumber());
+            }
+        }
+
+        List<IP> newIps = snapshot == null ? null : ipRepository.findAllByIdGreaterThan(snapshot.maxIpId());
+
+        if (newIps != null && snapshot.suspiciousIpCount() + snapshot.suspiciousRangeCount() + newIps.size() == ipRepository.count()) {
+            snapshot.forEachSuspiciousIp(suspiciousIps::add);
+            snapshot.forEachSuspiciousRange(suspiciousRanges::add);
+            newIps.forEach(ip -> addSuspiciousIp(ip.getIp()));
+        } else {
+            for (IP ip : ipRepository.findAll()) {
+                addSuspiciousIp(ip.getIp());
+            }
+        }
+    }
+
+    public boolean isStolenCard(String number) {
+        return isStolenCard(Identifiers.parseCardNumber(number));
+    }
+
+    public boolean isStolenCard(long number) {
+        return number != Identifiers.INVALID && stolenCards.contains(number);
+    }
+
+    public boolean isSuspiciousIp(String ip) {
+        long packed = Identifiers.parseIp(ip);
+
+        return packed != Identifiers.INVALID && isSuspiciousIp((int) packed);
+    }
+
+    public boolean isSuspiciousIp(int ip) {
+        return suspiciousIps.contains(Integer.toUnsignedLong(ip)) || (!suspiciousRanges.isEmpty() && suspiciousRanges.longestMatch(ip) >= 0);
+    }
+
+    public boolean containsSuspiciousEntry(String entry) {
+        int slash = entry.indexOf('/');
+
+        if (slash < 0) {
+            return suspiciousIps.contains(Identifiers.parseIp(entry));
+        }
+
+        return suspiciousRanges.contains((int) Identifiers.parseIp(entry, 0, slash), prefixLength(entry, slash));
+    }
+
+    public void addStolenCard(String number) {
+        long packed = Identifiers.parseCardNumber(number);
+
+        if (packed != Identifiers.INVALID) {
+            stolenCards.add(packed);
+        }
+    }
+
+    public void removeStolenCard(String number) {
+        stolenCards.remove(Identifiers.parseCardNumber(number));
+    }
+
+    public void addSuspiciousIp(String entry) {
+        int slash = entry.indexOf('/');
+
+        if (slash < 0) {
+            suspiciousIps.add(Identifiers.parseIp(entry));
+        } else {
+            suspiciousRanges.add((int) Identifiers.parseIp(entry, 0, slash), prefixLength(entry, slash));
+        }
+    }
+
+    public void removeSuspiciousIp(String entry) {
+        int slash = entry.indexOf('/');
+
+        if (slash < 0) {
+            suspiciousIps.remove(Identifiers.parseIp(entry));
+        } else {
+            suspiciousRanges.remove((int) Identifiers.parseIp(entry, 0, slash), prefixLength(entry, slash));
+        }
+    }
+
+    void forEachStolenCard(LongConsumer action) {
+        stolenCards.forEach(action);
+    }
+
+    void forEachSuspiciousIp(LongConsumer action) {
+        suspiciousIps.forEach(action);
+    }
+
+    void forEachSuspiciousRange(IpRangeTrie.RangeConsumer action) {
+        suspiciousRanges.forEach(action);
+    }
+
+    public int stolenCardCount() {
+        return stolenCards.size();
+    }
+
+    public int suspiciousIpCount() {
+        return suspiciousIps.size();
+    }
+
+    public int suspiciousRangeCount() {
+        return suspiciousRanges.size();
+    }
+
+    public long memoryFootprint() {
+        return stolenCards.memoryFootprint() + suspiciousIps.memoryFootprint();
+    }
+
+    private static int prefixLength(String range, int slash) {
+        return Integer.parseInt(range, slash + 1, range.length(), 10);
+    }
+}
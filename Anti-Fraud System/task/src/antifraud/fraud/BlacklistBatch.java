@@ -0,0 +1,6 @@
+package antifraud.fraud;
+
+import java.util.List;
+
+public record BlacklistBatch(List<BlacklistChange> changes) {
+}
@@ -0,0 +1,7 @@
+package antifraud.fraud;
+
+public record BlacklistChange(Kind kind, String entry) {
+    public enum Kind {
+        STOLEN_CARD_ADDED, STOLEN_CARD_REMOVED, SUSPICIOUS_IP_ADDED, SUSPICIOUS_IP_REMOVED
+    }
+}
@@ -0,0 +1,173 @@
+package antifraud.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+@Component
+public class BlacklistTransfer {
+    private static final String INSERT_CARD = "INSERT INTO cards (number) SELECT CAST(? AS VARCHAR(255)) WHERE NOT EXISTS (SELECT 1 FROM cards WHERE number = ?)";
+    private static final String INSERT_IP = "INSERT INTO ips (ip) SELECT CAST(? AS VARCHAR(255)) WHERE NOT EXISTS (SELECT 1 FROM ips WHERE ip = ?)";
+
+    private final Blacklist blacklist;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public BlacklistTransfer(Blacklist blacklist,
+                             JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${antifraud.blacklist.import.batch-size:1000}") int batchSize,
+                             @Value("${antifraud.history.fetch-size:1000}") int fetchSize) {
+        this.blacklist = blacklist;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importStolenCards(Stream<String> numbers) {
+        return importEntries(numbers, Identifiers::parseCardNumber, blacklist::isStolenCard, INSERT_CARD,
+                blacklist::addStolenCard, BlacklistChange.Kind.STOLEN_CARD_ADDED);
+    }
+
+    public ImportResult importSuspiciousIps(Stream<String> entries) {
+        return importEntries(entries, BlacklistTransfer::ipKey, blacklist::containsSuspiciousEntry, INSERT_IP,
+                blacklist::addSuspiciousIp, BlacklistChange.Kind.SUSPICIOUS_IP_ADDED);
+    }
+
+    public void exportStolenCards(Consumer<Card> consumer) {
+        try (Stream<Card> cards = cursorTemplate.queryForStream("SELECT id, number FROM cards ORDER BY id", (resultSet, row) -> {
+            Card card = new Card(resultSet.getString(2));
+            card.setId(resultSet.getLong(1));
+            return card;
+        })) {
+            cards.forEach(consumer);
+        }
+    }
+
+    public void exportSuspiciousIps(Consumer<IP> consumer) {
+        try (Stream<IP> ips = cursorTemplate.queryForStream("SELECT id, ip FROM ips ORDER BY id", (resultSet, row) -> {
+            IP ip = new IP(resultSet.getString(2));
+            ip.setId(resultSet.getLong(1));
+            return ip;
+        })) {
+            ips.forEach(consumer);
+        }
+    }
+
+    // Entries arrive already validated and normalised by the caller; null marks an entry that failed validation.
+    private ImportResult importEntries(Stream<String> entries, ToLongFunction<String> key, Predicate<String> exists, String insert,
+                                       Consumer<String> apply, BlacklistChange.Kind kind) {
+        LongHashSet seen = new LongHashSet(batchSize);
+        List<String> pending = new ArrayList<>(batchSize);
+        long added = 0;
+        long duplicate = 0;
+        long invalid = 0;
+
+        for (Iterator<String> iterator = entries.iterator(); iterator.hasNext(); ) {
+            String entry = iterator.next();
+
+            if (entry == null) {
+                invalid++;
+            } else if (!seen.add(key.applyAsLong(entry)) || exists.test(entry)) {
+                duplicate++;
+            } else {
+                pending.add(entry);
+
+                if (pending.size() == batchSize) {
+                    int inserted = flush(pending, insert, apply, kind);
+                    added += inserted;
+                    duplicate += pending.size() - inserted;
+                    pending.clear();
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            int inserted = flush(pending, insert, apply, kind);
+            added += inserted;
+            duplicate += pending.size() - inserted;
+        }
+
+        return new ImportResult(added, duplicate, invalid);
+    }
+
+    private int flush(List<String> entries, String insert, Consumer<String> apply, BlacklistChange.Kind kind) {
+        List<String> inserted;
+
+        try {
+            inserted = transactionTemplate.execute(status -> insertAll(entries, insert));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent single add won the race for one of the entries; the batch rolled back, so retry row by row.
+            inserted = new ArrayList<>(entries.size());
+            for (String entry : entries) {
+                try {
+                    if (jdbcTemplate.update(insert, entry, entry) != 0) {
+                        inserted.add(entry);
+                    }
+                } catch (DataIntegrityViolationException ignored) {
+                }
+            }
+        }
+
+        List<BlacklistChange> changes = new ArrayList<>(inserted.size());
+        for (String entry : inserted) {
+            apply.accept(entry);
+            changes.add(new BlacklistChange(kind, entry));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new BlacklistBatch(changes));
+        }
+
+        return inserted.size();
+    }
+
+    private List<String> insertAll(List<String> entries, String insert) {
+        int[][] counts = jdbcTemplate.batchUpdate(insert, entries, entries.size(), (statement, entry) -> {
+            statement.setString(1, entry);
+            statement.setString(2, entry);
+        });
+        List<String> inserted = new ArrayList<>(entries.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[0][i] != 0) {
+                inserted.add(entries.get(i));
+            }
+        }
+
+        return inserted;
+    }
+
+    private static long ipKey(String entry) {
+        int slash = entry.indexOf('/');
+
+        if (slash < 0) {
+            return Identifiers.parseIp(entry);
+        }
+
+        return (Long.parseLong(entry, slash + 1, entry.length(), 10) + 1) << 32 | Identifiers.parseIp(entry, 0, slash);
+    }
+
+    public record ImportResult(long added, long duplicate, long invalid) {
+    }
+}
@@ -0,0 +1,58 @@
+package antifraud.fraud;
+
+class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private final long[] bits;
+    private final int bitMask;
+
+    BloomFilter(int expectedSize) {
+        int size = 64;
+        while (size < (long) Math.max(expectedSize, 1) * BITS_PER_ELEMENT) {
+            size <<= 1;
+        }
+        this.bits = new long[size >>> 6];
+        this.bitMask = size - 1;
+    }
+
+    void add(long key) {
+        long hash = mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    long memoryFootprint() {
+        return 8L * bits.length;
+    }
+
+    static int mix(long key) {
+        return (int) mix64(key);
+    }
+
+    private static long mix64(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
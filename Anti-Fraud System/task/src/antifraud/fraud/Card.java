@@ -5,7 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "cards")
+@Table(name = "cards", uniqueConstraints = @UniqueConstraint(name = "uk_cards_number", columnNames = "number"))
 @Data
 @NoArgsConstructor
 public class Card {
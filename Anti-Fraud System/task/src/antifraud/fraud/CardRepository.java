@@ -3,6 +3,10 @@ package antifraud.fraud;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.ListPagingAndSortingRepository;
 
+import java.util.List;
+
 public interface CardRepository extends CrudRepository<Card, Long>, ListPagingAndSortingRepository<Card, Long> {
     Card findByNumber(String number);
-}
\ No newline at end of file
+
+    List<Card> findAllByIdGreaterThan(long id);
+}
@@ -0,0 +1,51 @@
+package antifraud.fraud;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public record CompactTransaction(long number, int ip, byte region, long time, long amount) {
+    public static final byte NO_REGION = -1;
+
+    private static final Transaction.Region[] REGIONS = Transaction.Region.values();
+
+    public static CompactTransaction of(Transaction transaction) {
+        if (transaction == null || transaction.getAmount() <= 0 || transaction.getIp() == null || transaction.getNumber() == null || transaction.getDate() == null) {
+            return null;
+        }
+
+        long number = Identifiers.parseCardNumber(transaction.getNumber());
+        long ip = Identifiers.parseIp(transaction.getIp());
+
+        if (number == Identifiers.INVALID || ip == Identifiers.INVALID) {
+            return null;
+        }
+
+        byte region = transaction.getRegion() == null ? NO_REGION : (byte) transaction.getRegion().ordinal();
+
+        return new CompactTransaction(number, (int) ip, region, toMillis(transaction.getDate()), transaction.getAmount());
+    }
+
+    public Transaction.Region regionOrNull() {
+        return region == NO_REGION ? null : REGIONS[region];
+    }
+
+    public LocalDateTime date() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1000), (int) Math.floorMod(time, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    public Transaction toEntity(Transaction.Result result) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(amount);
+        transaction.setIp(Identifiers.formatIp(ip));
+        transaction.setNumber(Identifiers.formatCardNumber(number));
+        transaction.setRegion(regionOrNull());
+        transaction.setDate(date());
+        transaction.setResult(result);
+
+        return transaction;
+    }
+
+    static long toMillis(LocalDateTime date) {
+        return date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,95 @@
+package antifraud.fraud;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongConsumer;
+
+class ConcurrentLongSet {
+    private static final int MINIMUM_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private final LongHashSet set = new LongHashSet(MINIMUM_CAPACITY);
+    private BloomFilter bloom = new BloomFilter(MINIMUM_CAPACITY);
+    private int bloomCapacity = MINIMUM_CAPACITY;
+    private int removals;
+
+    boolean contains(long key) {
+        long stamp = lock.tryOptimisticRead();
+        boolean found = lookup(key);
+
+        if (lock.validate(stamp)) {
+            return found;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return lookup(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean lookup(long key) {
+        return bloom.mightContain(key) && set.contains(key);
+    }
+
+    void add(long key) {
+        long stamp = lock.writeLock();
+        try {
+            if (set.add(key)) {
+                if (set.size() > bloomCapacity) {
+                    rebuildBloom();
+                } else {
+                    bloom.add(key);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            if (set.remove(key) && ++removals > bloomCapacity / 4) {
+                rebuildBloom();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return set.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void forEach(LongConsumer action) {
+        long stamp = lock.readLock();
+        try {
+            set.forEach(action);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    long memoryFootprint() {
+        long stamp = lock.readLock();
+        try {
+            return set.memoryFootprint() + bloom.memoryFootprint();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void rebuildBloom() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(MINIMUM_CAPACITY, set.size() * 2));
+        set.forEach(rebuilt::add);
+        bloom = rebuilt;
+        bloomCapacity = Math.max(MINIMUM_CAPACITY, set.size() * 2);
+        removals = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package antifraud.fraud;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class DecisionLog implements Closeable {
+    static final byte INVALID = -1;
+    static final byte REJECTED = -2;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long position;
+
+    DecisionLog(Path path, long committedPosition) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        truncate(committedPosition);
+    }
+
+    void add(long offset, long transactionId, byte result, String info) {
+        byte[] bytes = info.getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 8 + 1 + 2 + bytes.length;
+
+        if (buffer.remaining() < 4 + length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + 4 + length));
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+
+        buffer.putInt(length);
+        buffer.putLong(offset);
+        buffer.putLong(transactionId);
+        buffer.put(result);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    long flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        channel.force(false);
+
+        return position;
+    }
+
+    void truncate(long committedPosition) throws IOException {
+        buffer.clear();
+        position = Math.min(committedPosition, channel.size());
+        channel.truncate(position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
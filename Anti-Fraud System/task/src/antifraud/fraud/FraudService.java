@@ -2,34 +2,108 @@ package antifraud.fraud;
 
 import antifraud.AntiFraudController;
 import antifraud.exceptions.*;
-import jakarta.validation.Valid;
+import antifraud.fraud.rules.RuleEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@DependsOn("transactionSequence")
 public class FraudService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FraudService.class);
+
     private final IPRepository ipRepository;
     private final CardRepository cardRepository;
     private final TransactionRepository transactionRepository;
-    private final LimitRepository limitRepository;
-
-    public FraudService(IPRepository ipRepository, CardRepository cardRepository, TransactionRepository transactionRepository, LimitRepository limitRepository) {
+    private final LimitStore limitStore;
+    private final VelocityIndex velocityIndex;
+    private final Blacklist blacklist;
+    private final TransactionWriter transactionWriter;
+    private final TransactionCursor transactionCursor;
+    private final TransactionArchive transactionArchive;
+    private final RuleEngine ruleEngine;
+    private final ScoringShards scoringShards;
+    private final BlacklistTransfer blacklistTransfer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer velocityTimer;
+    private final Timer rulesTimer;
+    private final Timer persistTimer;
+    private final Timer feedbackLookupTimer;
+    private final Timer feedbackLimitsTimer;
+    private final Timer feedbackSaveTimer;
+    private final Map<Transaction.Result, Counter> resultCounters = new EnumMap<>(Transaction.Result.class);
+    private final Map<Transaction.Result, Counter> feedbackCounters = new EnumMap<>(Transaction.Result.class);
+    private final AtomicLong firstDecisionMillis = new AtomicLong(-1);
+
+    public FraudService(IPRepository ipRepository, CardRepository cardRepository, TransactionRepository transactionRepository, LimitStore limitStore, VelocityIndex velocityIndex, Blacklist blacklist, TransactionWriter transactionWriter, TransactionCursor transactionCursor, TransactionArchive transactionArchive, RuleEngine ruleEngine, ScoringShards scoringShards, BlacklistTransfer blacklistTransfer, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.ipRepository = ipRepository;
         this.cardRepository = cardRepository;
         this.transactionRepository = transactionRepository;
-        this.limitRepository = limitRepository;
+        this.limitStore = limitStore;
+        this.velocityIndex = velocityIndex;
+        this.blacklist = blacklist;
+        this.transactionWriter = transactionWriter;
+        this.transactionCursor = transactionCursor;
+        this.transactionArchive = transactionArchive;
+        this.ruleEngine = ruleEngine;
+        this.scoringShards = scoringShards;
+        this.blacklistTransfer = blacklistTransfer;
+        this.eventPublisher = eventPublisher;
+        this.velocityTimer = stageTimer(meterRegistry, "antifraud.transaction.stage", "velocity");
+        this.rulesTimer = stageTimer(meterRegistry, "antifraud.transaction.stage", "rules");
+        this.persistTimer = stageTimer(meterRegistry, "antifraud.transaction.stage", "persist");
+        this.feedbackLookupTimer = stageTimer(meterRegistry, "antifraud.feedback.stage", "lookup");
+        this.feedbackLimitsTimer = stageTimer(meterRegistry, "antifraud.feedback.stage", "limits");
+        this.feedbackSaveTimer = stageTimer(meterRegistry, "antifraud.feedback.stage", "save");
+
+        for (Transaction.Result result : Transaction.Result.values()) {
+            resultCounters.put(result, meterRegistry.counter("antifraud.transactions", "result", result.name()));
+            feedbackCounters.put(result, meterRegistry.counter("antifraud.feedback", "feedback", result.name()));
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String name, String stage) {
+        return Timer.builder(name)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public IP addSuspiciousIp(String ip) {
-        if (ipRepository.findByIp(ip) != null) {
+        if (blacklist.containsSuspiciousEntry(ip)) {
             throw new SuspiciousIPAlreadyExistsException();
         }
 
-        return ipRepository.save(new IP(ip));
+        IP suspiciousIP;
+        try {
+            suspiciousIP = ipRepository.save(new IP(ip));
+        } catch (DataIntegrityViolationException e) {
+            throw new SuspiciousIPAlreadyExistsException();
+        }
+
+        blacklist.addSuspiciousIp(ip);
+        eventPublisher.publishEvent(new BlacklistChange(BlacklistChange.Kind.SUSPICIOUS_IP_ADDED, ip));
+
+        return suspiciousIP;
     }
 
     public void deleteSuspiciousIP(String ip) {
@@ -40,18 +114,38 @@ public class FraudService {
         }
 
         ipRepository.delete(suspiciousIP);
+        blacklist.removeSuspiciousIp(ip);
+        eventPublisher.publishEvent(new BlacklistChange(BlacklistChange.Kind.SUSPICIOUS_IP_REMOVED, ip));
     }
 
     public List<IP> getSuspiciousIPs() {
         return ipRepository.findAll(Sort.by("id"));
     }
 
+    public BlacklistTransfer.ImportResult importSuspiciousIps(Stream<String> entries) {
+        return blacklistTransfer.importSuspiciousIps(entries);
+    }
+
+    public void streamSuspiciousIps(Consumer<IP> consumer) {
+        blacklistTransfer.exportSuspiciousIps(consumer);
+    }
+
     public Card addStolenCard(String number) {
-        if (cardRepository.findByNumber(number) != null) {
+        if (blacklist.isStolenCard(number)) {
             throw new StolenCardAlreadyExistsException();
         }
 
-        return cardRepository.save(new Card(number));
+        Card stolenCard;
+        try {
+            stolenCard = cardRepository.save(new Card(number));
+        } catch (DataIntegrityViolationException e) {
+            throw new StolenCardAlreadyExistsException();
+        }
+
+        blacklist.addStolenCard(number);
+        eventPublisher.publishEvent(new BlacklistChange(BlacklistChange.Kind.STOLEN_CARD_ADDED, number));
+
+        return stolenCard;
     }
 
     public void deleteStolenCard(String number) {
@@ -62,147 +156,264 @@ public class FraudService {
         }
 
         cardRepository.delete(stolenCard);
+        blacklist.removeStolenCard(number);
+        eventPublisher.publishEvent(new BlacklistChange(BlacklistChange.Kind.STOLEN_CARD_REMOVED, number));
+    }
+
+    public void applyBlacklistChange(BlacklistChange change) {
+        switch (change.kind()) {
+            case STOLEN_CARD_ADDED -> {
+                if (cardRepository.findByNumber(change.entry()) == null) {
+                    saveIgnoringDuplicate(() -> cardRepository.save(new Card(change.entry())));
+                }
+                blacklist.addStolenCard(change.entry());
+            }
+            case STOLEN_CARD_REMOVED -> {
+                Card stolenCard = cardRepository.findByNumber(change.entry());
+                if (stolenCard != null) {
+                    cardRepository.delete(stolenCard);
+                }
+                blacklist.removeStolenCard(change.entry());
+            }
+            case SUSPICIOUS_IP_ADDED -> {
+                if (ipRepository.findByIp(change.entry()) == null) {
+                    saveIgnoringDuplicate(() -> ipRepository.save(new IP(change.entry())));
+                }
+                blacklist.addSuspiciousIp(change.entry());
+            }
+            default -> {
+                IP suspiciousIP = ipRepository.findByIp(change.entry());
+                if (suspiciousIP != null) {
+                    ipRepository.delete(suspiciousIP);
+                }
+                blacklist.removeSuspiciousIp(change.entry());
+            }
+        }
+    }
+
+    private static void saveIgnoringDuplicate(Runnable save) {
+        try {
+            save.run();
+        } catch (DataIntegrityViolationException ignored) {
+        }
     }
 
     public List<Card> getStolenCards() {
         return cardRepository.findAll(Sort.by("id"));
     }
 
-    public AntiFraudController.TransactionResponse processTransaction(@Valid Transaction transaction) {
-        Transaction.Result result = Transaction.Result.ALLOWED;
-        List<String> info = new ArrayList<>();
+    public BlacklistTransfer.ImportResult importStolenCards(Stream<String> numbers) {
+        return blacklistTransfer.importStolenCards(numbers);
+    }
 
-        if (transaction.getAmount() > limitRepository.getManualProcessingLimit().getLimitAmount()) {
-            result = Transaction.Result.PROHIBITED;
-            info.add("amount");
-        }
+    public void streamStolenCards(Consumer<Card> consumer) {
+        blacklistTransfer.exportStolenCards(consumer);
+    }
 
-        if (ipRepository.findByIp(transaction.getIp()) != null) {
-            result = Transaction.Result.PROHIBITED;
-            info.add("ip");
-        }
+    public AntiFraudController.TransactionResponse processTransaction(CompactTransaction transaction) {
+        RuleEngine.Decision decision = score(transaction);
+        long start = System.nanoTime();
+        transactionWriter.write(transaction.toEntity(decision.result()));
+        persistTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return new AntiFraudController.TransactionResponse(decision.result().name(), decision.info());
+    }
 
-        if (cardRepository.findByNumber(transaction.getNumber()) != null) {
-            result = Transaction.Result.PROHIBITED;
-            info.add("card-number");
+    @Transactional
+    public List<AntiFraudController.TransactionResponse> processTransactions(List<CompactTransaction> transactions) {
+        List<RuleEngine.Decision> decisions = scoreAll(transactions);
+        List<AntiFraudController.TransactionResponse> responses = new ArrayList<>(transactions.size());
+        List<Transaction> scored = new ArrayList<>(transactions.size());
+
+        for (int i = 0; i < transactions.size(); i++) {
+            RuleEngine.Decision decision = decisions.get(i);
+            scored.add(transactions.get(i).toEntity(decision.result()));
+            responses.add(new AntiFraudController.TransactionResponse(decision.result().name(), decision.info()));
         }
 
-        transaction = transactionRepository.save(transaction);
+        long start = System.nanoTime();
+        transactionWriter.writeAll(scored);
+        persistTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        LocalDateTime oneHourBeforeTransaction = transaction.getDate().minusHours(1);
-        int numberOfOutOfRegionTransactions = transactionRepository.findNumberOfUniqueRegionsInBetweenDates(transaction.getNumber(), oneHourBeforeTransaction, transaction.getDate());
-        int numberOfUniqueIPTransactions = transactionRepository.findNumberOfUniqueIPsInBetweenDates(transaction.getNumber(), oneHourBeforeTransaction, transaction.getDate());
+        return responses;
+    }
 
-        if (numberOfOutOfRegionTransactions > 3) {
-            result = Transaction.Result.PROHIBITED;
-            info.add("region-correlation");
+    RuleEngine.Decision score(CompactTransaction transaction) {
+        return scoringShards.isEnabled() ? scoringShards.call(transaction, this::scoreTransaction) : scoreTransaction(transaction);
+    }
+
+    List<RuleEngine.Decision> scoreAll(List<CompactTransaction> transactions) {
+        if (scoringShards.isEnabled()) {
+            return scoringShards.callAll(transactions, this::scoreTransaction);
         }
 
-        if (numberOfUniqueIPTransactions > 3) {
-            result = Transaction.Result.PROHIBITED;
-            info.add("ip-correlation");
+        List<RuleEngine.Decision> decisions = new ArrayList<>(transactions.size());
+        for (CompactTransaction transaction : transactions) {
+            decisions.add(scoreTransaction(transaction));
         }
 
-        if (result == Transaction.Result.ALLOWED) {
-            if (transaction.getAmount() > limitRepository.getAllowedLimit().getLimitAmount() && transaction.getAmount() <= limitRepository.getManualProcessingLimit().getLimitAmount()) {
-                result = Transaction.Result.MANUAL_PROCESSING;
-                info.add("amount");
-            }
+        return decisions;
+    }
 
-            if (numberOfOutOfRegionTransactions == 3) {
-                result = Transaction.Result.MANUAL_PROCESSING;
-                info.add("region-correlation");
-            }
+    private RuleEngine.Decision scoreTransaction(CompactTransaction transaction) {
+        long start = System.nanoTime();
+        velocityIndex.record(transaction);
+        long recorded = System.nanoTime();
+        velocityTimer.record(recorded - start, TimeUnit.NANOSECONDS);
 
-            if (numberOfUniqueIPTransactions == 3) {
-                result = Transaction.Result.MANUAL_PROCESSING;
-                info.add("ip-correlation");
-            }
+        RuleEngine.Decision decision = ruleEngine.evaluate(transaction);
+        rulesTimer.record(System.nanoTime() - recorded, TimeUnit.NANOSECONDS);
+        resultCounters.get(decision.result()).increment();
+
+        if (firstDecisionMillis.get() < 0) {
+            recordFirstDecision();
         }
 
-        transaction.setResult(result);
-        transactionRepository.save(transaction);
+        return decision;
+    }
 
-        return new AntiFraudController.TransactionResponse(result.name(), info.isEmpty() ? "none" : String.join(", ", info.stream().sorted().toList()));
+    private void recordFirstDecision() {
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+
+        if (firstDecisionMillis.compareAndSet(-1, millis)) {
+            LOGGER.info("First transaction scored {} ms after JVM start", millis);
+        }
     }
 
-    private void increaseAllowedLimit(long transactionAmount) {
-        Limit allowedLimit = limitRepository.getAllowedLimit();
-        allowedLimit.setLimitAmount((long) Math.ceil(0.8 * allowedLimit.getLimitAmount() + 0.2 * transactionAmount));
-        limitRepository.save(allowedLimit);
+    public long firstDecisionMillis() {
+        return firstDecisionMillis.get();
     }
 
-    private void increaseManualProcessingLimit(long transactionAmount) {
-        Limit manualProcessingLimit = limitRepository.getManualProcessingLimit();
-        manualProcessingLimit.setLimitAmount((long) Math.ceil(0.8 * manualProcessingLimit.getLimitAmount() + 0.2 * transactionAmount));
-        limitRepository.save(manualProcessingLimit);
+    private void increaseAllowedLimit(long number, long transactionAmount) {
+        limitStore.update(number, Transaction.Result.ALLOWED, limit -> (long) Math.ceil(0.8 * limit + 0.2 * transactionAmount));
     }
 
-    private void decreaseAllowedLimit(long transactionAmount) {
-        Limit allowedLimit = limitRepository.getAllowedLimit();
-        allowedLimit.setLimitAmount((long) Math.ceil(0.8 * allowedLimit.getLimitAmount() - 0.2 * transactionAmount));
-        limitRepository.save(allowedLimit);
+    private void increaseManualProcessingLimit(long number, long transactionAmount) {
+        limitStore.update(number, Transaction.Result.MANUAL_PROCESSING, limit -> (long) Math.ceil(0.8 * limit + 0.2 * transactionAmount));
     }
 
-    private void decreaseManualProcessingLimit(long transactionAmount) {
-        Limit manualProcessingLimit = limitRepository.getManualProcessingLimit();
-        manualProcessingLimit.setLimitAmount((long) Math.ceil(0.8 * manualProcessingLimit.getLimitAmount() - 0.2 * transactionAmount));
-        limitRepository.save(manualProcessingLimit);
+    private void decreaseAllowedLimit(long number, long transactionAmount) {
+        limitStore.update(number, Transaction.Result.ALLOWED, limit -> (long) Math.ceil(0.8 * limit - 0.2 * transactionAmount));
+    }
+
+    private void decreaseManualProcessingLimit(long number, long transactionAmount) {
+        limitStore.update(number, Transaction.Result.MANUAL_PROCESSING, limit -> (long) Math.ceil(0.8 * limit - 0.2 * transactionAmount));
     }
 
     public Transaction addFeedbackForTransaction(long transactionId, Transaction.Result feedback) {
-        Transaction transaction = transactionRepository.findById(transactionId).orElseThrow(TransactionNotFoundException::new);
+        return transactionArchive.read(() -> applyFeedback(transactionId, feedback));
+    }
+
+    private Transaction applyFeedback(long transactionId, Transaction.Result feedback) {
+        long start = System.nanoTime();
+        Optional<Transaction> storedTransaction = transactionRepository.findById(transactionId);
+
+        if (storedTransaction.isEmpty()) {
+            awaitWriteBehind();
+            storedTransaction = transactionRepository.findById(transactionId);
+        }
+
+        if (storedTransaction.isEmpty() && transactionArchive.restore(transactionId)) {
+            storedTransaction = transactionRepository.findById(transactionId);
+        }
+
+        Transaction transaction = storedTransaction.orElseThrow(TransactionNotFoundException::new);
+        long found = System.nanoTime();
+        feedbackLookupTimer.record(found - start, TimeUnit.NANOSECONDS);
 
         if (transaction.getFeedback() != null) {
             throw new TransactionFeedbackAlreadyExistsException();
         }
 
+        long number = Identifiers.parseCardNumber(transaction.getNumber());
+
         switch (feedback) {
             case ALLOWED -> {
                 switch (transaction.getResult()) {
                     case ALLOWED -> throw new TransactionFeedbackMatchesResultException();
-                    case MANUAL_PROCESSING -> increaseAllowedLimit(transaction.getAmount());
+                    case MANUAL_PROCESSING -> increaseAllowedLimit(number, transaction.getAmount());
                     default -> {
-                        increaseAllowedLimit(transaction.getAmount());
-                        increaseManualProcessingLimit(transaction.getAmount());
+                        increaseAllowedLimit(number, transaction.getAmount());
+                        increaseManualProcessingLimit(number, transaction.getAmount());
                     }
                 }
             }
             case MANUAL_PROCESSING -> {
                 switch (transaction.getResult()) {
-                    case ALLOWED -> decreaseAllowedLimit(transaction.getAmount());
+                    case ALLOWED -> decreaseAllowedLimit(number, transaction.getAmount());
                     case MANUAL_PROCESSING -> throw new TransactionFeedbackMatchesResultException();
-                    default -> increaseManualProcessingLimit(transaction.getAmount());
+                    default -> increaseManualProcessingLimit(number, transaction.getAmount());
                 }
             }
             default -> {
                 switch (transaction.getResult()) {
                     case ALLOWED -> {
-                        decreaseAllowedLimit(transaction.getAmount());
-                        decreaseManualProcessingLimit(transaction.getAmount());
+                        decreaseAllowedLimit(number, transaction.getAmount());
+                        decreaseManualProcessingLimit(number, transaction.getAmount());
                     }
-                    case MANUAL_PROCESSING -> decreaseManualProcessingLimit(transaction.getAmount());
+                    case MANUAL_PROCESSING -> decreaseManualProcessingLimit(number, transaction.getAmount());
                     default -> throw new TransactionFeedbackMatchesResultException();
                 }
             }
         }
 
+        long updated = System.nanoTime();
+        feedbackLimitsTimer.record(updated - found, TimeUnit.NANOSECONDS);
+
         transaction.setFeedback(feedback);
+        Transaction saved = transactionRepository.save(transaction);
+        feedbackSaveTimer.record(System.nanoTime() - updated, TimeUnit.NANOSECONDS);
+        feedbackCounters.get(feedback).increment();
+
+        return saved;
+    }
+
+    public List<Transaction> getTransactions(long after, int limit) {
+        awaitWriteBehind();
 
-        return transactionRepository.save(transaction);
+        return transactionCursor.read(null, after, transactions -> transactions.limit(limit).toList());
     }
 
-    public List<Transaction> getTransactions() {
-        return transactionRepository.findAll(Sort.by("transactionId"));
+    public void streamTransactions(long after, Consumer<Transaction> consumer) {
+        awaitWriteBehind();
+        transactionCursor.read(null, after, transactions -> {
+            transactions.forEach(consumer);
+            return null;
+        });
     }
 
-    public List<Transaction> getTransactionsForNumber(String number) {
-        List<Transaction> transactions = transactionRepository.findAllByNumber(number);
+    public List<Transaction> getTransactionsForNumber(String number, long after, int limit) {
+        awaitWriteBehind();
+
+        List<Transaction> transactions = transactionCursor.read(number, after, stream -> stream.limit(limit).toList());
 
-        if (transactions.isEmpty()) {
+        if (transactions.isEmpty() && !hasTransactions(number)) {
             throw new TransactionsNotFoundException();
         }
 
-        return transactionRepository.findAllByNumber(number);
+        return transactions;
+    }
+
+    public void streamTransactionsForNumber(String number, long after, Consumer<Transaction> consumer) {
+        awaitWriteBehind();
+
+        if (!hasTransactions(number)) {
+            throw new TransactionsNotFoundException();
+        }
+
+        transactionCursor.read(number, after, transactions -> {
+            transactions.forEach(consumer);
+            return null;
+        });
+    }
+
+    private boolean hasTransactions(String number) {
+        return transactionCursor.read(number, 0, transactions -> transactions.findAny().isPresent());
+    }
+
+    private void awaitWriteBehind() {
+        if (!transactionWriter.flush()) {
+            throw new WriteBehindFlushTimeoutException();
+        }
     }
 }
@@ -0,0 +1,218 @@
+package antifraud.fraud;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+class FraudSnapshot {
+    private static final int MAGIC = 0x46534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 * 6;
+
+    private final ByteBuffer buffer;
+    private final long createdAt;
+    private final long maxCardId;
+    private final long maxIpId;
+    private final long maxTransactionId;
+    private final long coveredSince;
+    private final int cardsAt;
+    private final int ipsAt;
+    private final int rangesAt;
+    private final int activityAt;
+
+    private FraudSnapshot(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a fraud snapshot: " + path);
+        }
+
+        this.buffer = buffer;
+        this.createdAt = buffer.getLong(8);
+        this.maxCardId = buffer.getLong(16);
+        this.maxIpId = buffer.getLong(24);
+        this.maxTransactionId = buffer.getLong(32);
+        this.coveredSince = buffer.getLong(40);
+        this.cardsAt = HEADER_SIZE;
+        this.ipsAt = cardsAt + 4 + 8 * buffer.getInt(cardsAt);
+        this.rangesAt = ipsAt + 4 + 8 * buffer.getInt(ipsAt);
+        this.activityAt = rangesAt + 4 + 5 * buffer.getInt(rangesAt);
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    long maxCardId() {
+        return maxCardId;
+    }
+
+    long maxIpId() {
+        return maxIpId;
+    }
+
+    long maxTransactionId() {
+        return maxTransactionId;
+    }
+
+    long coveredSince() {
+        return coveredSince;
+    }
+
+    int stolenCardCount() {
+        return buffer.getInt(cardsAt);
+    }
+
+    int suspiciousIpCount() {
+        return buffer.getInt(ipsAt);
+    }
+
+    int suspiciousRangeCount() {
+        return buffer.getInt(rangesAt);
+    }
+
+    void forEachStolenCard(LongConsumer action) {
+        forEachLong(cardsAt, action);
+    }
+
+    void forEachSuspiciousIp(LongConsumer action) {
+        forEachLong(ipsAt, action);
+    }
+
+    void forEachSuspiciousRange(IpRangeTrie.RangeConsumer action) {
+        int count = buffer.getInt(rangesAt);
+        int position = rangesAt + 4;
+
+        for (int i = 0; i < count; i++, position += 5) {
+            action.accept(buffer.getInt(position), buffer.get(position + 4));
+        }
+    }
+
+    void forEachActivity(long from, Consumer<CompactTransaction> action) {
+        int cards = buffer.getInt(activityAt);
+        int position = activityAt + 4;
+
+        for (int card = 0; card < cards; card++) {
+            long number = buffer.getLong(position);
+            int events = buffer.getInt(position + 8);
+            position += 12;
+
+            for (int event = 0; event < events; event++, position += 13) {
+                long time = buffer.getLong(position);
+
+                if (time >= from) {
+                    action.accept(new CompactTransaction(number, buffer.getInt(position + 9), buffer.get(position + 8), time, 0));
+                }
+            }
+        }
+    }
+
+    private void forEachLong(int offset, LongConsumer action) {
+        int count = buffer.getInt(offset);
+
+        for (int i = 0; i < count; i++) {
+            action.accept(buffer.getLong(offset + 4 + 8 * i));
+        }
+    }
+
+    static FraudSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new FraudSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path);
+        }
+    }
+
+    static void write(Path path, Blacklist blacklist, VelocityIndex velocityIndex, long maxTransactionId, LongSupplier maxCardId, LongSupplier maxIpId) throws IOException {
+        ByteArrayOutputStream cards = new ByteArrayOutputStream();
+        ByteArrayOutputStream ips = new ByteArrayOutputStream();
+        ByteArrayOutputStream ranges = new ByteArrayOutputStream();
+        ByteArrayOutputStream activity = new ByteArrayOutputStream();
+        int[] counts = new int[4];
+        long coveredSince = velocityIndex.coveredSince();
+
+        try (DataOutputStream cardOutput = new DataOutputStream(cards);
+             DataOutputStream ipOutput = new DataOutputStream(ips);
+             DataOutputStream rangeOutput = new DataOutputStream(ranges);
+             DataOutputStream activityOutput = new DataOutputStream(activity)) {
+            blacklist.forEachStolenCard(number -> {
+                writeLong(cardOutput, number);
+                counts[0]++;
+            });
+            blacklist.forEachSuspiciousIp(ip -> {
+                writeLong(ipOutput, ip);
+                counts[1]++;
+            });
+            blacklist.forEachSuspiciousRange((network, length) -> {
+                try {
+                    rangeOutput.writeInt(network);
+                    rangeOutput.writeByte(length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                counts[2]++;
+            });
+            velocityIndex.forEachActivity((number, times, regions, addresses, from, to) -> {
+                if (from == to) {
+                    return;
+                }
+
+                try {
+                    activityOutput.writeLong(number);
+                    activityOutput.writeInt(to - from);
+                    for (int i = from; i < to; i++) {
+                        activityOutput.writeLong(times[i]);
+                        activityOutput.writeByte(regions[i]);
+                        activityOutput.writeInt(addresses[i]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                counts[3]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long cardWatermark = maxCardId.getAsLong();
+        long ipWatermark = maxIpId.getAsLong();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(System.currentTimeMillis());
+            output.writeLong(cardWatermark);
+            output.writeLong(ipWatermark);
+            output.writeLong(maxTransactionId);
+            output.writeLong(coveredSince);
+            writeSection(output, counts[0], cards);
+            writeSection(output, counts[1], ips);
+            writeSection(output, counts[2], ranges);
+            writeSection(output, counts[3], activity);
+
+            output.flush();
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeSection(DataOutputStream output, int count, ByteArrayOutputStream section) throws IOException {
+        output.writeInt(count);
+        section.writeTo(output);
+    }
+
+    private static void writeLong(DataOutputStream output, long value) {
+        try {
+            output.writeLong(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
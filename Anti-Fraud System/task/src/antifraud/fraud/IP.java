@@ -5,7 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "ips")
+@Table(name = "ips", uniqueConstraints = @UniqueConstraint(name = "uk_ips_ip", columnNames = "ip"))
 @Data
 @NoArgsConstructor
 public class IP {
@@ -3,6 +3,10 @@ package antifraud.fraud;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.ListPagingAndSortingRepository;
 
+import java.util.List;
+
 public interface IPRepository extends CrudRepository<IP, Long>, ListPagingAndSortingRepository<IP, Long> {
     IP findByIp(String ip);
+
+    List<IP> findAllByIdGreaterThan(long id);
 }
@@ -0,0 +1,89 @@
+package antifraud.fraud;
+
+import java.nio.charset.StandardCharsets;
+
+public final class Identifiers {
+    public static final long INVALID = -1;
+
+    private Identifiers() {
+    }
+
+    public static long parseIp(CharSequence ip) {
+        return parseIp(ip, 0, ip.length());
+    }
+
+    public static long parseIp(CharSequence ip, int from, int to) {
+        long packed = 0;
+        int part = 0;
+        int digits = 0;
+        int dots = 0;
+
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+
+            if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return INVALID;
+                }
+                packed = (packed << 8) | part;
+                part = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                part = part * 10 + (c - '0');
+                digits++;
+                if (part > 255) {
+                    return INVALID;
+                }
+            } else {
+                return INVALID;
+            }
+        }
+
+        if (digits == 0 || dots != 3) {
+            return INVALID;
+        }
+
+        return (packed << 8) | part;
+    }
+
+    public static long parseCardNumber(CharSequence number) {
+        if (number.length() != 16) {
+            return INVALID;
+        }
+
+        long packed = 0;
+        int sum = 0;
+
+        for (int i = 0; i < 16; i++) {
+            int digit = number.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+
+            packed = packed * 10 + digit;
+
+            if (i < 15) {
+                int weighted = i % 2 == 0 ? digit * 2 : digit;
+                sum += weighted > 9 ? weighted - 9 : weighted;
+            }
+        }
+
+        return 10 - sum % 10 == number.charAt(15) - '0' ? packed : INVALID;
+    }
+
+    public static String formatIp(int ip) {
+        return (ip >>> 24) + "." + ((ip >>> 16) & 0xFF) + '.' + ((ip >>> 8) & 0xFF) + '.' + (ip & 0xFF);
+    }
+
+    public static String formatCardNumber(long number) {
+        byte[] digits = new byte[16];
+
+        for (int i = 15; i >= 0; i--) {
+            digits[i] = (byte) ('0' + number % 10);
+            number /= 10;
+        }
+
+        return new String(digits, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,161 @@
+package antifraud.fraud;
+
+class IpRangeTrie {
+    private volatile Node root;
+    private volatile int size;
+
+    int longestMatch(int ip) {
+        Node node = root;
+        int longest = -1;
+
+        while (node != null && prefix(ip, node.length) == node.key) {
+            if (node.terminal) {
+                longest = node.length;
+            }
+            if (node.length == 32) {
+                break;
+            }
+            node = bit(ip, node.length) == 0 ? node.zero : node.one;
+        }
+
+        return longest;
+    }
+
+    boolean contains(int network, int length) {
+        Node node = root;
+        int key = prefix(network, length);
+
+        while (node != null && node.length <= length && prefix(key, node.length) == node.key) {
+            if (node.length == length) {
+                return node.terminal;
+            }
+            node = bit(key, node.length) == 0 ? node.zero : node.one;
+        }
+
+        return false;
+    }
+
+    synchronized boolean add(int network, int length) {
+        if (contains(network, length)) {
+            return false;
+        }
+
+        root = insert(root, prefix(network, length), length);
+        size++;
+
+        return true;
+    }
+
+    synchronized boolean remove(int network, int length) {
+        if (!contains(network, length)) {
+            return false;
+        }
+
+        root = delete(root, prefix(network, length), length);
+        size--;
+
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(RangeConsumer action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, RangeConsumer action) {
+        if (node == null) {
+            return;
+        }
+
+        if (node.terminal) {
+            action.accept(node.key, node.length);
+        }
+        forEach(node.zero, action);
+        forEach(node.one, action);
+    }
+
+    private static Node insert(Node node, int key, int length) {
+        if (node == null) {
+            return new Node(key, length, true, null, null);
+        }
+
+        int common = Math.min(Math.min(node.length, length), Integer.numberOfLeadingZeros(node.key ^ key));
+
+        if (common == node.length && common == length) {
+            return new Node(node.key, node.length, true, node.zero, node.one);
+        }
+
+        if (common == node.length) {
+            return bit(key, common) == 0
+                    ? new Node(node.key, node.length, node.terminal, insert(node.zero, key, length), node.one)
+                    : new Node(node.key, node.length, node.terminal, node.zero, insert(node.one, key, length));
+        }
+
+        if (common == length) {
+            return bit(node.key, common) == 0
+                    ? new Node(key, length, true, node, null)
+                    : new Node(key, length, true, null, node);
+        }
+
+        Node leaf = new Node(key, length, true, null, null);
+
+        return bit(key, common) == 0
+                ? new Node(prefix(key, common), common, false, leaf, node)
+                : new Node(prefix(key, common), common, false, node, leaf);
+    }
+
+    private static Node delete(Node node, int key, int length) {
+        if (node.length == length) {
+            return compact(new Node(node.key, node.length, false, node.zero, node.one));
+        }
+
+        Node updated = bit(key, node.length) == 0
+                ? new Node(node.key, node.length, node.terminal, delete(node.zero, key, length), node.one)
+                : new Node(node.key, node.length, node.terminal, node.zero, delete(node.one, key, length));
+
+        return compact(updated);
+    }
+
+    private static Node compact(Node node) {
+        if (node.terminal || (node.zero != null && node.one != null)) {
+            return node;
+        }
+
+        return node.zero != null ? node.zero : node.one;
+    }
+
+    private static int prefix(int key, int length) {
+        return length == 0 ? 0 : key & (-1 << (32 - length));
+    }
+
+    private static int bit(int key, int index) {
+        return (key >>> (31 - index)) & 1;
+    }
+
+    interface RangeConsumer {
+        void accept(int network, int length);
+    }
+
+    private static final class Node {
+        final int key;
+        final int length;
+        final boolean terminal;
+        final Node zero;
+        final Node one;
+
+        Node(int key, int length, boolean terminal, Node zero, Node one) {
+            this.key = key;
+            this.length = length;
+            this.terminal = terminal;
+            this.zero = zero;
+            this.one = one;
+        }
+    }
+}
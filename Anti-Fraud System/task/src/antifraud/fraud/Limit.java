@@ -5,13 +5,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "limits")
+@Table(name = "limits", uniqueConstraints = @UniqueConstraint(name = "uk_limits_number_result", columnNames = {"number", "result"}))
 @Data
 @NoArgsConstructor
 public class Limit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
+    private String number;
     @Enumerated(value = EnumType.STRING)
     private Transaction.Result result;
     private long limitAmount;
@@ -20,4 +21,10 @@ public class Limit {
         this.result = result;
         this.limitAmount = result.equals(Transaction.Result.ALLOWED) ? 200L : 1500L;
     }
+
+    public Limit(String number, Transaction.Result result, long limitAmount) {
+        this.number = number;
+        this.result = result;
+        this.limitAmount = limitAmount;
+    }
 }
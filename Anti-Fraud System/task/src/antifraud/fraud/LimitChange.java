@@ -0,0 +1,4 @@
+package antifraud.fraud;
+
+public record LimitChange(long number, Transaction.Result result, long amount) {
+}
@@ -1,19 +1,27 @@
 package antifraud.fraud;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+
 public interface LimitRepository extends CrudRepository<Limit, Long> {
-    Limit findByResult(Transaction.Result result);
+    Limit findByNumberIsNullAndResult(Transaction.Result result);
+
+    List<Limit> findAllByNumber(String number);
+
+    @Query("SELECT DISTINCT l.number FROM Limit l WHERE l.number IS NOT NULL")
+    List<String> findAllCardNumbers();
 
     default boolean isInitialisedWithLimits() {
         return getAllowedLimit() != null;
     }
 
     default Limit getAllowedLimit() {
-        return findByResult(Transaction.Result.ALLOWED);
+        return findByNumberIsNullAndResult(Transaction.Result.ALLOWED);
     }
 
     default Limit getManualProcessingLimit() {
-        return findByResult(Transaction.Result.MANUAL_PROCESSING);
+        return findByNumberIsNullAndResult(Transaction.Result.MANUAL_PROCESSING);
     }
 }
@@ -0,0 +1,197 @@
+package antifraud.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongUnaryOperator;
+
+@Component
+public class LimitStore {
+    private static final int LOCK_STRIPES = 64;
+
+    private final LimitRepository limitRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long globalAllowedLimit;
+    private final long globalManualProcessingLimit;
+    private final int cacheSize;
+    private final Map<Long, CardLimits> cache = new ConcurrentHashMap<>();
+    private final ConcurrentLongSet cardsWithLimits = new ConcurrentLongSet();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LimitStore(LimitRepository limitRepository, ApplicationEventPublisher eventPublisher, @Value("${antifraud.limits.cache-size:100000}") int cacheSize) {
+        this.limitRepository = limitRepository;
+        this.eventPublisher = eventPublisher;
+
+        if (!limitRepository.isInitialisedWithLimits()) {
+            initialiseLimits();
+        }
+
+        this.globalAllowedLimit = limitRepository.getAllowedLimit().getLimitAmount();
+        this.globalManualProcessingLimit = limitRepository.getManualProcessingLimit().getLimitAmount();
+        this.cacheSize = cacheSize;
+
+        for (String number : limitRepository.findAllCardNumbers()) {
+            cardsWithLimits.add(Identifiers.parseCardNumber(number));
+        }
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private void initialiseLimits() {
+        limitRepository.save(new Limit(Transaction.Result.ALLOWED));
+        limitRepository.save(new Limit(Transaction.Result.MANUAL_PROCESSING));
+    }
+
+    public long getAllowedLimit(long number) {
+        CardLimits limits = cachedLimitsFor(number);
+        StoredLimit limit = limits == null ? null : limits.allowed;
+        return limit == null ? globalAllowedLimit : limit.amount;
+    }
+
+    public long getManualProcessingLimit(long number) {
+        CardLimits limits = cachedLimitsFor(number);
+        StoredLimit limit = limits == null ? null : limits.manualProcessing;
+        return limit == null ? globalManualProcessingLimit : limit.amount;
+    }
+
+    public long update(long number, Transaction.Result result, LongUnaryOperator operator) {
+        long updated = apply(number, result, operator);
+        eventPublisher.publishEvent(new LimitChange(number, result, updated));
+
+        return updated;
+    }
+
+    public void applyLimitChange(LimitChange change) {
+        apply(change.number(), change.result(), limit -> change.amount());
+    }
+
+    private long apply(long number, Transaction.Result result, LongUnaryOperator operator) {
+        synchronized (lockFor(number)) {
+            CardLimits limits = load(number);
+            StoredLimit limit = limits.get(result);
+
+            if (limit == null) {
+                long seed = result == Transaction.Result.ALLOWED ? globalAllowedLimit : globalManualProcessingLimit;
+                limit = new StoredLimit(new Limit(Identifiers.formatCardNumber(number), result, seed));
+                limit.update(operator);
+                limits.set(result, limit);
+                cardsWithLimits.add(number);
+                return limit.amount;
+            }
+
+            return limit.update(operator);
+        }
+    }
+
+    public int cacheSize() {
+        return cache.size();
+    }
+
+    // Cards without per-card rows never reach the cache or the database; they read the global limits.
+    private CardLimits cachedLimitsFor(long number) {
+        if (!cardsWithLimits.contains(number)) {
+            return null;
+        }
+
+        CardLimits limits = cache.get(number);
+
+        if (limits == null) {
+            return load(number);
+        }
+
+        if (!limits.referenced) {
+            limits.referenced = true;
+        }
+        return limits;
+    }
+
+    private CardLimits load(long number) {
+        synchronized (lockFor(number)) {
+            CardLimits limits = cache.get(number);
+
+            if (limits == null) {
+                limits = new CardLimits();
+                for (Limit limit : limitRepository.findAllByNumber(Identifiers.formatCardNumber(number))) {
+                    limits.set(limit.getResult(), new StoredLimit(limit));
+                }
+
+                cache.put(number, limits);
+                evictIfFull();
+            }
+
+            return limits;
+        }
+    }
+
+    // Second-chance eviction: entries read since the last pass survive it once. Readers only flip a flag, so they never lock.
+    private void evictIfFull() {
+        if (cache.size() <= cacheSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (int pass = 0; pass < 2 && cache.size() > cacheSize; pass++) {
+                for (Iterator<CardLimits> iterator = cache.values().iterator(); iterator.hasNext() && cache.size() > cacheSize; ) {
+                    CardLimits limits = iterator.next();
+
+                    if (limits.referenced) {
+                        limits.referenced = false;
+                    } else {
+                        iterator.remove();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private Object lockFor(long number) {
+        return locks[(Long.hashCode(number) & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private static class CardLimits {
+        private volatile boolean referenced = true;
+        private volatile StoredLimit allowed;
+        private volatile StoredLimit manualProcessing;
+
+        StoredLimit get(Transaction.Result result) {
+            return result == Transaction.Result.ALLOWED ? allowed : manualProcessing;
+        }
+
+        void set(Transaction.Result result, StoredLimit limit) {
+            if (result == Transaction.Result.ALLOWED) {
+                allowed = limit;
+            } else {
+                manualProcessing = limit;
+            }
+        }
+    }
+
+    private class StoredLimit {
+        private final Limit row;
+        private volatile long amount;
+
+        StoredLimit(Limit row) {
+            this.row = row;
+            this.amount = row.getLimitAmount();
+        }
+
+        long update(LongUnaryOperator operator) {
+            long updated = operator.applyAsLong(amount);
+            row.setLimitAmount(updated);
+            limitRepository.save(row);
+            amount = updated;
+
+            return updated;
+        }
+    }
+}
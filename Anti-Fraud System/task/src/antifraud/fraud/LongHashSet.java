@@ -0,0 +1,145 @@
+package antifraud.fraud;
+
+import java.util.function.LongConsumer;
+
+class LongHashSet {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int size;
+    private boolean containsEmptyKey;
+
+    LongHashSet(int expectedSize) {
+        keys = new long[capacityFor(expectedSize)];
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmptyKey;
+        }
+
+        long[] table = keys;
+        int mask = table.length - 1;
+        int index = BloomFilter.mix(key) & mask;
+
+        for (long current = table[index]; current != EMPTY; current = table[index]) {
+            if (current == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return false;
+    }
+
+    boolean add(long key) {
+        if (key == EMPTY) {
+            boolean added = !containsEmptyKey;
+            containsEmptyKey = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int index = BloomFilter.mix(key) & mask;
+
+        for (long current = keys[index]; current != EMPTY; current = keys[index]) {
+            if (current == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        size++;
+        return true;
+    }
+
+    boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean removed = containsEmptyKey;
+            containsEmptyKey = false;
+            if (removed) {
+                size--;
+            }
+            return removed;
+        }
+
+        int mask = keys.length - 1;
+        int index = BloomFilter.mix(key) & mask;
+
+        while (keys[index] != key) {
+            if (keys[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = BloomFilter.mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongConsumer action) {
+        if (containsEmptyKey) {
+            action.accept(EMPTY);
+        }
+
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    long memoryFootprint() {
+        return 8L * keys.length;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        long[] table = new long[capacity];
+        int mask = capacity - 1;
+
+        for (long key : old) {
+            if (key != EMPTY) {
+                int index = BloomFilter.mix(key) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = key;
+            }
+        }
+
+        keys = table;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
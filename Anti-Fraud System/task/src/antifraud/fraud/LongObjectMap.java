@@ -0,0 +1,170 @@
+package antifraud.fraud;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+class LongObjectMap<V> {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private V emptyKeyValue;
+
+    LongObjectMap(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+
+        long[] table = keys;
+        int mask = table.length - 1;
+        int index = BloomFilter.mix(key) & mask;
+
+        for (long current = table[index]; current != EMPTY; current = table[index]) {
+            if (current == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            emptyKeyValue = value;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int index = BloomFilter.mix(key) & mask;
+
+        for (long current = keys[index]; current != EMPTY; current = keys[index]) {
+            if (current == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    void removeIf(Predicate<V> predicate) {
+        if (emptyKeyValue != null && predicate.test(emptyKeyValue)) {
+            emptyKeyValue = null;
+            size--;
+        }
+
+        for (int index = 0; index < keys.length; index++) {
+            while (keys[index] != EMPTY && predicate.test((V) values[index])) {
+                removeAt(index);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<V> action) {
+        if (emptyKeyValue != null) {
+            action.accept(emptyKeyValue);
+        }
+
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != EMPTY) {
+                action.accept((V) values[index]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachEntry(EntryConsumer<V> action) {
+        if (emptyKeyValue != null) {
+            action.accept(EMPTY, emptyKeyValue);
+        }
+
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index] != EMPTY) {
+                action.accept(keys[index], (V) values[index]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void removeAt(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+
+        while (keys[next] != EMPTY) {
+            int home = BloomFilter.mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] table = new long[capacity];
+        Object[] tableValues = new Object[capacity];
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = BloomFilter.mix(oldKeys[i]) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = oldKeys[i];
+                tableValues[index] = oldValues[i];
+            }
+        }
+
+        keys = table;
+        values = tableValues;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
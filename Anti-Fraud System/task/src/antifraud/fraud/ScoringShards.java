@@ -0,0 +1,118 @@
+package antifraud.fraud;
+
+import antifraud.exceptions.ScoringQueueFullException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+public class ScoringShards {
+    private final ThreadPoolExecutor[] workers;
+
+    public ScoringShards(@Value("${antifraud.shards.enabled:false}") boolean enabled,
+                         @Value("${antifraud.shards.count:0}") int count,
+                         @Value("${antifraud.shards.queue-size:10000}") int queueSize) {
+        if (!enabled) {
+            this.workers = null;
+            return;
+        }
+
+        int shards = count > 0 ? count : Runtime.getRuntime().availableProcessors();
+        this.workers = new ThreadPoolExecutor[shards];
+
+        for (int i = 0; i < shards; i++) {
+            String name = "scoring-shard-" + i;
+            workers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return workers != null;
+    }
+
+    public int shardCount() {
+        return workers == null ? 0 : workers.length;
+    }
+
+    public int queueSize() {
+        int size = 0;
+
+        if (workers != null) {
+            for (ThreadPoolExecutor worker : workers) {
+                size += worker.getQueue().size();
+            }
+        }
+
+        return size;
+    }
+
+    <T> T call(CompactTransaction transaction, Function<CompactTransaction, T> task) {
+        return join(submit(transaction, task));
+    }
+
+    <T> List<T> callAll(List<CompactTransaction> transactions, Function<CompactTransaction, T> task) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(transactions.size());
+
+        for (CompactTransaction transaction : transactions) {
+            futures.add(submit(transaction, task));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(join(future));
+        }
+
+        return results;
+    }
+
+    private <T> CompletableFuture<T> submit(CompactTransaction transaction, Function<CompactTransaction, T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> task.apply(transaction), workers[shardOf(transaction.number())]);
+        } catch (RejectedExecutionException e) {
+            throw new ScoringQueueFullException();
+        }
+    }
+
+    private int shardOf(long number) {
+        return VelocityIndex.stripe(number) % workers.length;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (workers == null) {
+            return;
+        }
+
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+        for (ThreadPoolExecutor worker : workers) {
+            worker.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
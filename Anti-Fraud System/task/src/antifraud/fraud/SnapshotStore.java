@@ -0,0 +1,57 @@
+package antifraud.fraud;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+@Component
+public class SnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private final boolean enabled;
+    private final Path path;
+    private volatile FraudSnapshot loaded;
+
+    public SnapshotStore(@Value("${antifraud.snapshot.enabled:false}") boolean enabled,
+                         @Value("${antifraud.snapshot.path:../fraud.snapshot}") String path) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+
+        if (!enabled || !Files.exists(this.path)) {
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            this.loaded = FraudSnapshot.read(this.path);
+            LOGGER.info("Mapped fraud snapshot {} taken at {} in {} ms", path, Instant.ofEpochMilli(loaded.createdAt()), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable fraud snapshot {}, rebuilding from the database", path, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    FraudSnapshot loaded() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void release() {
+        loaded = null;
+    }
+}
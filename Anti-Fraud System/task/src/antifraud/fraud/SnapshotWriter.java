@@ -0,0 +1,88 @@
+package antifraud.fraud;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SnapshotWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private final Blacklist blacklist;
+    private final VelocityIndex velocityIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService scheduler;
+
+    public SnapshotWriter(Blacklist blacklist,
+                          VelocityIndex velocityIndex,
+                          JdbcTemplate jdbcTemplate,
+                          SnapshotStore snapshotStore,
+                          @Value("${antifraud.snapshot.interval-seconds:300}") long intervalSeconds) {
+        this.blacklist = blacklist;
+        this.velocityIndex = velocityIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotStore = snapshotStore;
+
+        if (!snapshotStore.isEnabled()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fraud-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::writeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void write() throws IOException {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+
+        synchronized (scheduler) {
+            long start = System.nanoTime();
+            // Anything persisted up to this id is already in the velocity index; later rows are replayed on load.
+            long maxTransactionId = maxId("SELECT MAX(transaction_id) FROM transactions");
+
+            // The list watermarks are read after the copy so a row added in between fails the count check on load instead of going missing.
+            FraudSnapshot.write(snapshotStore.path(), blacklist, velocityIndex, maxTransactionId,
+                    () -> maxId("SELECT MAX(id) FROM cards"), () -> maxId("SELECT MAX(id) FROM ips"));
+            LOGGER.info("Wrote fraud snapshot {} in {} ms", snapshotStore.path(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Writing the fraud snapshot failed", e);
+        }
+    }
+
+    private long maxId(String query) {
+        Long id = jdbcTemplate.queryForObject(query, Long.class);
+        return id == null ? 0 : id;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        writeQuietly();
+    }
+}
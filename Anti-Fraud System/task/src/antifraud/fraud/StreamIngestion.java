@@ -0,0 +1,252 @@
+package antifraud.fraud;
+
+import antifraud.fraud.rules.RuleEngine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@DependsOn("schemaMigrations")
+public class StreamIngestion {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamIngestion.class);
+    private static final long MAX_CARD_NUMBER = 9_999_999_999_999_999L;
+    private static final int REGIONS = Transaction.Region.values().length;
+
+    private final FraudService fraudService;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String consumer;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+    private final TransactionLog input;
+    private final DecisionLog output;
+    private final Thread worker;
+    private volatile long offset;
+    private long outputPosition;
+    private volatile long failures;
+    private volatile long rejected;
+    private volatile boolean running = true;
+
+    public StreamIngestion(FraudService fraudService,
+                           TransactionRepository transactionRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${antifraud.stream.enabled:false}") boolean enabled,
+                           @Value("${antifraud.stream.input:../transactions.log}") String inputPath,
+                           @Value("${antifraud.stream.output:../decisions.log}") String outputPath,
+                           @Value("${antifraud.stream.consumer:scoring}") String consumer,
+                           @Value("${antifraud.stream.batch-size:1000}") int batchSize,
+                           @Value("${antifraud.stream.poll-interval-ms:50}") long pollIntervalMillis,
+                           @Value("${antifraud.stream.max-attempts:10}") int maxAttempts) throws IOException {
+        this.fraudService = fraudService;
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.maxAttempts = maxAttempts;
+
+        if (!enabled) {
+            this.input = null;
+            this.output = null;
+            this.worker = null;
+            return;
+        }
+
+        List<Map<String, Object>> committed = jdbcTemplate.queryForList("SELECT input_offset, output_position FROM stream_offsets WHERE consumer = ?", consumer);
+
+        if (committed.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO stream_offsets (consumer, input_offset, output_position) VALUES (?, 0, 0)", consumer);
+        } else {
+            this.offset = ((Number) committed.get(0).get("input_offset")).longValue();
+            this.outputPosition = ((Number) committed.get(0).get("output_position")).longValue();
+        }
+
+        this.input = new TransactionLog(Path.of(inputPath), batchSize);
+        this.output = new DecisionLog(Path.of(outputPath), outputPosition);
+        LOGGER.info("Consuming {} from offset {} as '{}'", inputPath, offset, consumer);
+
+        this.worker = new Thread(this::consume, "stream-ingestion");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public long failures() {
+        return failures;
+    }
+
+    public long rejected() {
+        return rejected;
+    }
+
+    public long lag() {
+        if (!enabled) {
+            return 0;
+        }
+
+        try {
+            return Math.max(0, input.size() - offset);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void consume() {
+        List<CompactTransaction> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+
+        while (running) {
+            try {
+                batch.clear();
+
+                if (input.read(offset, batchSize, batch) == 0) {
+                    Thread.sleep(pollIntervalMillis);
+                    continue;
+                }
+
+                if (attempts < maxAttempts) {
+                    process(batch);
+                } else {
+                    processIndividually(batch);
+                }
+                attempts = 0;
+            } catch (IOException | RuntimeException e) {
+                attempts++;
+                failures++;
+                LOGGER.warn("Scoring stream batch at offset {} failed on attempt {}, retrying", offset, attempts, e);
+
+                try {
+                    output.truncate(outputPosition);
+                    Thread.sleep(1000);
+                } catch (IOException truncateFailure) {
+                    LOGGER.error("Could not roll back the decision log, stopping stream ingestion", truncateFailure);
+                    return;
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // A batch that keeps failing is scored one transaction at a time, so only the transactions that fail on their own
+    // are rejected and the stream moves past them.
+    private void processIndividually(List<CompactTransaction> batch) throws IOException {
+        for (CompactTransaction transaction : batch) {
+            try {
+                process(List.of(transaction));
+            } catch (RuntimeException e) {
+                output.truncate(outputPosition);
+                reject(e);
+            }
+        }
+    }
+
+    private void reject(RuntimeException cause) {
+        long position = transactionTemplate.execute(status -> {
+            output.add(offset, 0, DecisionLog.REJECTED, "rejected");
+            return commit(1);
+        });
+
+        LOGGER.error("Transaction at stream offset {} could not be scored after {} attempts and was rejected", offset, maxAttempts, cause);
+        offset++;
+        outputPosition = position;
+        rejected++;
+    }
+
+    private void process(List<CompactTransaction> batch) {
+        long position = transactionTemplate.execute(status -> {
+            List<CompactTransaction> valid = new ArrayList<>(batch.size());
+            boolean[] invalid = new boolean[batch.size()];
+
+            for (int i = 0; i < batch.size(); i++) {
+                invalid[i] = !isValid(batch.get(i));
+
+                if (!invalid[i]) {
+                    valid.add(batch.get(i));
+                }
+            }
+
+            List<RuleEngine.Decision> decisions = fraudService.scoreAll(valid);
+            List<Transaction> scored = new ArrayList<>(valid.size());
+
+            for (int i = 0; i < valid.size(); i++) {
+                scored.add(valid.get(i).toEntity(decisions.get(i).result()));
+            }
+
+            transactionRepository.saveAll(scored);
+
+            for (int i = 0, persisted = 0; i < batch.size(); i++) {
+                if (invalid[i]) {
+                    output.add(offset + i, 0, DecisionLog.INVALID, "invalid");
+                } else {
+                    RuleEngine.Decision decision = decisions.get(persisted);
+                    output.add(offset + i, scored.get(persisted++).getTransactionId(), (byte) decision.result().ordinal(), decision.info());
+                }
+            }
+
+            return commit(batch.size());
+        });
+
+        offset += batch.size();
+        outputPosition = position;
+    }
+
+    private long commit(int consumed) {
+        try {
+            long flushed = output.flush();
+            jdbcTemplate.update("UPDATE stream_offsets SET input_offset = ?, output_position = ? WHERE consumer = ?",
+                    offset + consumed, flushed, consumer);
+            return flushed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isValid(CompactTransaction transaction) {
+        return transaction.amount() > 0
+                && transaction.region() >= CompactTransaction.NO_REGION && transaction.region() < REGIONS
+                && transaction.number() >= 0 && transaction.number() <= MAX_CARD_NUMBER
+                && Identifiers.parseCardNumber(Identifiers.formatCardNumber(transaction.number())) != Identifiers.INVALID;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+        input.close();
+        output.close();
+    }
+}
@@ -0,0 +1,381 @@
+package antifraud.fraud;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@Component
+public class TransactionArchive {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionArchive.class);
+    private static final String SEGMENT_PREFIX = "transactions-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SELECT_DAY = "SELECT transaction_id, amount, ip, number, region, date, result, feedback FROM transactions WHERE date >= ? AND date < ? ORDER BY transaction_id";
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionWriter transactionWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int hotDays;
+    private final int retentionDays;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentSkipListMap<LocalDate, TransactionSegment.Header> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public TransactionArchive(TransactionRepository transactionRepository,
+                              TransactionWriter transactionWriter,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${antifraud.archive.enabled:false}") boolean enabled,
+                              @Value("${antifraud.archive.directory:../archive}") String directory,
+                              @Value("${antifraud.archive.hot-days:2}") int hotDays,
+                              @Value("${antifraud.archive.retention-days:0}") int retentionDays,
+                              @Value("${antifraud.archive.interval-seconds:300}") long intervalSeconds) throws IOException {
+        this.transactionRepository = transactionRepository;
+        this.transactionWriter = transactionWriter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.hotDays = Math.max(1, hotDays);
+        this.retentionDays = retentionDays <= 0 ? 0 : Math.max(retentionDays, this.hotDays);
+
+        if (!enabled) {
+            this.scheduler = null;
+            return;
+        }
+
+        Files.createDirectories(this.directory);
+        loadSegments();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::archiveQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void loadSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    Files.delete(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    LocalDate day = LocalDate.parse(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(day, TransactionSegment.readHeader(file));
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long archivedTransactionCount() {
+        return segments.values().stream().mapToLong(TransactionSegment.Header::rows).sum();
+    }
+
+    public <T> T read(Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Stream<Transaction> merge(Stream<Transaction> hot, String number, long after) {
+        if (!enabled || segments.isEmpty()) {
+            return hot;
+        }
+
+        List<TransactionSegment.Header> pending = segments.values().stream()
+                .filter(header -> header.maxId() > after)
+                .sorted(Comparator.comparingLong(TransactionSegment.Header::minId))
+                .toList();
+        MergedHistory history = new MergedHistory(hot.iterator(), pending, number, after);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(history, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(hot::close);
+    }
+
+    boolean restore(long transactionId) {
+        if (!enabled) {
+            return false;
+        }
+
+        for (TransactionSegment.Header header : segments.values()) {
+            if (transactionId < header.minId() || transactionId > header.maxId()) {
+                continue;
+            }
+
+            TransactionSegment segment = readSegment(header.path());
+            int row = segment.indexOf(transactionId);
+
+            if (row >= 0) {
+                transactionWriter.upsert(List.of(segment.get(row)));
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (scheduler) {
+            LocalDateTime latest = transactionRepository.findLatestDate();
+
+            if (latest == null) {
+                return;
+            }
+
+            LocalDate hotSince = latest.toLocalDate().minusDays(hotDays);
+            LocalDate retainedSince = retentionDays == 0 ? LocalDate.MIN : latest.toLocalDate().minusDays(retentionDays);
+            List<LocalDate> days = jdbcTemplate.queryForList("SELECT DISTINCT CAST(date AS DATE) FROM transactions WHERE date < ?", LocalDate.class, hotSince.atStartOfDay());
+
+            for (LocalDate day : days) {
+                archiveDay(day, day.isBefore(retainedSince));
+            }
+
+            for (LocalDate day : List.copyOf(segments.headMap(retainedSince).keySet())) {
+                dropSegment(day);
+            }
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Archiving transactions failed", e);
+        }
+    }
+
+    private void archiveDay(LocalDate day, boolean expired) {
+        lock.writeLock().lock();
+        try {
+            List<Transaction> hot = jdbcTemplate.query(SELECT_DAY, (resultSet, row) -> TransactionCursor.toTransaction(resultSet),
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+
+            if (hot.isEmpty()) {
+                return;
+            }
+
+            if (!expired) {
+                TreeMap<Long, Transaction> merged = new TreeMap<>();
+                TransactionSegment.Header existing = segments.get(day);
+
+                if (existing != null) {
+                    TransactionSegment segment = readSegment(existing.path());
+                    for (int row = 0; row < segment.size(); row++) {
+                        merged.put(segment.id(row), segment.get(row));
+                    }
+                }
+
+                hot.forEach(transaction -> merged.put(transaction.getTransactionId(), transaction));
+                segments.put(day, TransactionSegment.write(segmentPath(day), new ArrayList<>(merged.values())));
+            }
+
+            jdbcTemplate.batchUpdate("DELETE FROM transactions WHERE transaction_id = ?", hot, 500,
+                    (statement, transaction) -> statement.setLong(1, transaction.getTransactionId()));
+            LOGGER.info("{} {} transactions from {}", expired ? "Dropped" : "Archived", hot.size(), day);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void dropSegment(LocalDate day) {
+        lock.writeLock().lock();
+        try {
+            TransactionSegment.Header header = segments.remove(day);
+            Files.deleteIfExists(header.path());
+            LOGGER.info("Dropped archived transactions from {}", day);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Path segmentPath(LocalDate day) {
+        return directory.resolve(SEGMENT_PREFIX + day + SEGMENT_SUFFIX);
+    }
+
+    private static TransactionSegment readSegment(Path path) {
+        try {
+            return TransactionSegment.read(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static class MergedHistory implements Iterator<Transaction> {
+        private final PriorityQueue<Run> runs = new PriorityQueue<>(Comparator.comparingLong(Run::id).thenComparingInt(Run::rank));
+        private final List<TransactionSegment.Header> pending;
+        private final String number;
+        private final long after;
+        private int nextSegment;
+
+        MergedHistory(Iterator<Transaction> hot, List<TransactionSegment.Header> pending, String number, long after) {
+            this.pending = pending;
+            this.number = number;
+            this.after = after;
+            advance(new HotRun(hot));
+        }
+
+        @Override
+        public boolean hasNext() {
+            openSegments();
+            return !runs.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Run run = runs.poll();
+            Transaction transaction = run.current();
+            advance(run);
+
+            while (!runs.isEmpty() && runs.peek().id() == transaction.getTransactionId()) {
+                advance(runs.poll());
+            }
+
+            return transaction;
+        }
+
+        private void openSegments() {
+            while (nextSegment < pending.size() && (runs.isEmpty() || pending.get(nextSegment).minId() <= runs.peek().id())) {
+                advance(new SegmentRun(readSegment(pending.get(nextSegment++).path()), number, after));
+            }
+        }
+
+        private void advance(Run run) {
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+    }
+
+    private interface Run {
+        Transaction current();
+
+        long id();
+
+        int rank();
+
+        boolean advance();
+    }
+
+    private static class HotRun implements Run {
+        private final Iterator<Transaction> transactions;
+        private Transaction current;
+
+        HotRun(Iterator<Transaction> transactions) {
+            this.transactions = transactions;
+        }
+
+        @Override
+        public Transaction current() {
+            return current;
+        }
+
+        @Override
+        public long id() {
+            return current.getTransactionId();
+        }
+
+        @Override
+        public int rank() {
+            return 0;
+        }
+
+        @Override
+        public boolean advance() {
+            current = transactions.hasNext() ? transactions.next() : null;
+            return current != null;
+        }
+    }
+
+    private static class SegmentRun implements Run {
+        private final TransactionSegment segment;
+        private final String number;
+        private final long after;
+        private int row = -1;
+
+        SegmentRun(TransactionSegment segment, String number, long after) {
+            this.segment = segment;
+            this.number = number;
+            this.after = after;
+        }
+
+        @Override
+        public Transaction current() {
+            return segment.get(row);
+        }
+
+        @Override
+        public long id() {
+            return segment.id(row);
+        }
+
+        @Override
+        public int rank() {
+            return 1;
+        }
+
+        @Override
+        public boolean advance() {
+            do {
+                row++;
+            } while (row < segment.size() && (segment.id(row) <= after || (number != null && !number.equals(segment.number(row)))));
+
+            return row < segment.size();
+        }
+    }
+}
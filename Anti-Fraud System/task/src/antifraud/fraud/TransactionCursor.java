@@ -0,0 +1,62 @@
+package antifraud.fraud;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Component
+public class TransactionCursor {
+    private static final String SELECT = "SELECT transaction_id, amount, ip, number, region, date, result, feedback FROM transactions ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionArchive transactionArchive;
+
+    public TransactionCursor(DataSource dataSource, TransactionArchive transactionArchive, @Value("${antifraud.history.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionArchive = transactionArchive;
+    }
+
+    public <T> T read(String number, long after, Function<Stream<Transaction>, T> reader) {
+        return transactionArchive.read(() -> {
+            try (Stream<Transaction> transactions = transactionArchive.merge(hot(number, after), number, after)) {
+                return reader.apply(transactions);
+            }
+        });
+    }
+
+    private Stream<Transaction> hot(String number, long after) {
+        if (number == null) {
+            return jdbcTemplate.queryForStream(SELECT + "WHERE transaction_id > ? ORDER BY transaction_id",
+                    (resultSet, row) -> toTransaction(resultSet), after);
+        }
+
+        return jdbcTemplate.queryForStream(SELECT + "WHERE number = ? AND transaction_id > ? ORDER BY transaction_id",
+                (resultSet, row) -> toTransaction(resultSet), number, after);
+    }
+
+    static Transaction toTransaction(ResultSet resultSet) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(resultSet.getLong(1));
+        transaction.setAmount(resultSet.getLong(2));
+        transaction.setIp(resultSet.getString(3));
+        transaction.setNumber(resultSet.getString(4));
+        transaction.setRegion(toEnum(Transaction.Region.class, resultSet.getString(5)));
+        transaction.setDate(resultSet.getObject(6, LocalDateTime.class));
+        transaction.setResult(toEnum(Transaction.Result.class, resultSet.getString(7)));
+        transaction.setFeedback(toEnum(Transaction.Result.class, resultSet.getString(8)));
+
+        return transaction;
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
@@ -0,0 +1,161 @@
+package antifraud.fraud;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// A ring buffer: positions only ever grow and wrap onto the data area, which holds everything from START to WRITE.
+class TransactionJournal {
+    private static final int START_POSITION = 0;
+    private static final int WRITE_POSITION = 8;
+    private static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int dataSize;
+    private final Object syncLock = new Object();
+    private long flushed;
+    private long durable;
+
+    TransactionJournal(Path path, int capacity) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dataSize = capacity - HEADER_SIZE;
+
+        long start = buffer.getLong(START_POSITION);
+        long write = buffer.getLong(WRITE_POSITION);
+        if (start < 0 || write < start || write - start > dataSize) {
+            buffer.putLong(START_POSITION, 0);
+            buffer.putLong(WRITE_POSITION, 0);
+        }
+        flushed = buffer.getLong(START_POSITION);
+    }
+
+    synchronized long append(Transaction transaction) {
+        byte[] ip = transaction.getIp().getBytes(StandardCharsets.UTF_8);
+        byte[] number = transaction.getNumber().getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 8 + 8 + 4 + 1 + 1 + 2 + ip.length + 2 + number.length;
+        long position = buffer.getLong(WRITE_POSITION);
+
+        if (position + 4 + length - buffer.getLong(START_POSITION) > dataSize) {
+            return -1;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length);
+        record.putLong(transaction.getTransactionId());
+        record.putLong(transaction.getAmount());
+        record.putLong(transaction.getDate().toEpochSecond(ZoneOffset.UTC));
+        record.putInt(transaction.getDate().getNano());
+        record.put((byte) (transaction.getRegion() == null ? -1 : transaction.getRegion().ordinal()));
+        record.put((byte) transaction.getResult().ordinal());
+        record.putShort((short) ip.length);
+        record.put(ip);
+        record.putShort((short) number.length);
+        record.put(number);
+
+        write(position, record.array());
+
+        long end = position + record.capacity();
+        buffer.putLong(WRITE_POSITION, end);
+
+        return end;
+    }
+
+    // Group commit: the first caller forces everything appended so far, later callers covered by that force return at once.
+    void force(long position) {
+        synchronized (syncLock) {
+            if (durable >= position) {
+                return;
+            }
+
+            long target;
+            synchronized (this) {
+                target = buffer.getLong(WRITE_POSITION);
+            }
+            buffer.force();
+            durable = target;
+        }
+    }
+
+    synchronized List<Transaction> entries() {
+        List<Transaction> transactions = new ArrayList<>();
+        long position = buffer.getLong(START_POSITION);
+        long end = buffer.getLong(WRITE_POSITION);
+
+        while (position < end) {
+            byte[] length = new byte[4];
+            read(position, length);
+            ByteBuffer record = ByteBuffer.wrap(new byte[ByteBuffer.wrap(length).getInt()]);
+            read(position + 4, record.array());
+
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(record.getLong());
+            transaction.setAmount(record.getLong());
+            long epochSecond = record.getLong();
+            transaction.setDate(LocalDateTime.ofEpochSecond(epochSecond, record.getInt(), ZoneOffset.UTC));
+            byte region = record.get();
+            transaction.setRegion(region < 0 ? null : Transaction.Region.values()[region]);
+            transaction.setResult(Transaction.Result.values()[record.get()]);
+            transaction.setIp(readString(record));
+            transaction.setNumber(readString(record));
+            transactions.add(transaction);
+
+            position += 4 + record.capacity();
+        }
+
+        return transactions;
+    }
+
+    synchronized void markFlushed(long position) {
+        flushed = position;
+    }
+
+    // Worth a database checkpoint once a quarter of the ring is flushed but still held.
+    synchronized boolean needsRelease() {
+        return flushed - buffer.getLong(START_POSITION) > dataSize / 4;
+    }
+
+    // Only called once the database has checkpointed everything up to position, so replay no longer needs it.
+    synchronized void release(long position) {
+        if (position > buffer.getLong(START_POSITION)) {
+            buffer.putLong(START_POSITION, position);
+        }
+    }
+
+    synchronized void reset() {
+        release(buffer.getLong(WRITE_POSITION));
+        flushed = buffer.getLong(START_POSITION);
+    }
+
+    private void write(long position, byte[] bytes) {
+        int offset = (int) (position % dataSize);
+        int head = Math.min(bytes.length, dataSize - offset);
+        buffer.put(HEADER_SIZE + offset, bytes, 0, head);
+        buffer.put(HEADER_SIZE, bytes, head, bytes.length - head);
+    }
+
+    private void read(long position, byte[] bytes) {
+        int offset = (int) (position % dataSize);
+        int head = Math.min(bytes.length, dataSize - offset);
+        buffer.get(HEADER_SIZE + offset, bytes, 0, head);
+        buffer.get(HEADER_SIZE, bytes, head, bytes.length - head);
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
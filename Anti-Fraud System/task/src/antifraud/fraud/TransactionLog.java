@@ -0,0 +1,90 @@
+package antifraud.fraud;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class TransactionLog implements Closeable {
+    static final int RECORD_SIZE = 32;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public TransactionLog(Path path, int maxBatch) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(RECORD_SIZE * Math.max(1, maxBatch));
+    }
+
+    public synchronized long append(List<CompactTransaction> transactions) throws IOException {
+        long offset = channel.size() / RECORD_SIZE;
+
+        for (int i = 0; i < transactions.size(); i += buffer.capacity() / RECORD_SIZE) {
+            buffer.clear();
+
+            for (int j = i; j < Math.min(transactions.size(), i + buffer.capacity() / RECORD_SIZE); j++) {
+                CompactTransaction transaction = transactions.get(j);
+                buffer.putLong(transaction.number());
+                buffer.putInt(transaction.ip());
+                buffer.put(transaction.region());
+                buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+                buffer.putLong(transaction.time());
+                buffer.putLong(transaction.amount());
+            }
+
+            buffer.flip();
+            long position = (offset + i) * RECORD_SIZE;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        channel.force(false);
+        return offset + transactions.size();
+    }
+
+    public synchronized int read(long offset, int max, List<CompactTransaction> into) throws IOException {
+        long available = channel.size() / RECORD_SIZE - offset;
+        int count = (int) Math.min(Math.min(available, max), buffer.capacity() / RECORD_SIZE);
+
+        if (count <= 0) {
+            return 0;
+        }
+
+        buffer.clear().limit(count * RECORD_SIZE);
+        long position = offset * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+
+        count = buffer.remaining() / RECORD_SIZE;
+        for (int i = 0; i < count; i++) {
+            long number = buffer.getLong();
+            int ip = buffer.getInt();
+            byte region = buffer.get();
+            buffer.position(buffer.position() + 3);
+            long time = buffer.getLong();
+            long amount = buffer.getLong();
+            into.add(new CompactTransaction(number, ip, region, time, amount));
+        }
+
+        return count;
+    }
+
+    public long size() throws IOException {
+        return channel.size() / RECORD_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -9,11 +9,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository extends CrudRepository<Transaction, Long>, ListPagingAndSortingRepository<Transaction, Long> {
-    @Query("SELECT COUNT(DISTINCT t.region) FROM Transaction t WHERE t.number = :number AND t.date BETWEEN :date AND :date2")
-    int findNumberOfUniqueRegionsInBetweenDates(@Param("number") String number, @Param("date") LocalDateTime date, @Param("date2") LocalDateTime date2);
+    @Query("SELECT DISTINCT t.region FROM Transaction t WHERE t.number = :number AND t.date BETWEEN :date AND :date2")
+    List<Transaction.Region> findUniqueRegionsInBetweenDates(@Param("number") String number, @Param("date") LocalDateTime date, @Param("date2") LocalDateTime date2);
 
-    @Query("SELECT COUNT(DISTINCT t.ip) FROM Transaction t WHERE t.number = :number AND t.date BETWEEN :date AND :date2")
-    int findNumberOfUniqueIPsInBetweenDates(@Param("number") String number, @Param("date") LocalDateTime date, @Param("date2") LocalDateTime date2);
+    @Query("SELECT DISTINCT t.ip FROM Transaction t WHERE t.number = :number AND t.date BETWEEN :date AND :date2")
+    List<String> findUniqueIPsInBetweenDates(@Param("number") String number, @Param("date") LocalDateTime date, @Param("date2") LocalDateTime date2);
+
+    @Query("SELECT MAX(t.date) FROM Transaction t")
+    LocalDateTime findLatestDate();
+
+    List<Transaction> findAllByDateBetween(LocalDateTime date, LocalDateTime date2);
+
+    List<Transaction> findAllByTransactionIdGreaterThanAndDateBetween(long transactionId, LocalDateTime date, LocalDateTime date2);
 
     List<Transaction> findAllByNumber(String number);
 }
@@ -0,0 +1,259 @@
+package antifraud.fraud;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+class TransactionSegment {
+    private static final int MAGIC = 0x54584E53;
+    private static final int VERSION = 1;
+    private static final Transaction.Region[] REGIONS = Transaction.Region.values();
+    private static final Transaction.Result[] RESULTS = Transaction.Result.values();
+
+    private final long[] ids;
+    private final long[] amounts;
+    private final long[] seconds;
+    private final int[] nanos;
+    private final String[] ips;
+    private final String[] numbers;
+    private final byte[] regions;
+    private final byte[] results;
+    private final byte[] feedbacks;
+
+    private TransactionSegment(int rows) {
+        ids = new long[rows];
+        amounts = new long[rows];
+        seconds = new long[rows];
+        nanos = new int[rows];
+        ips = new String[rows];
+        numbers = new String[rows];
+        regions = new byte[rows];
+        results = new byte[rows];
+        feedbacks = new byte[rows];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    int indexOf(long id) {
+        return Math.max(-1, Arrays.binarySearch(ids, id));
+    }
+
+    String number(int row) {
+        return numbers[row];
+    }
+
+    Transaction get(int row) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(ids[row]);
+        transaction.setAmount(amounts[row]);
+        transaction.setIp(ips[row]);
+        transaction.setNumber(numbers[row]);
+        transaction.setRegion(regions[row] < 0 ? null : REGIONS[regions[row]]);
+        transaction.setDate(LocalDateTime.ofEpochSecond(seconds[row], nanos[row], ZoneOffset.UTC));
+        transaction.setResult(results[row] < 0 ? null : RESULTS[results[row]]);
+        transaction.setFeedback(feedbacks[row] < 0 ? null : RESULTS[feedbacks[row]]);
+
+        return transaction;
+    }
+
+    static Header write(Path path, List<Transaction> transactions) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        long minId = transactions.get(0).getTransactionId();
+        long maxId = transactions.get(transactions.size() - 1).getTransactionId();
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(transactions.size());
+            output.writeLong(minId);
+            output.writeLong(maxId);
+
+            writeColumn(output, column -> {
+                long previous = 0;
+                for (Transaction transaction : transactions) {
+                    writeVarLong(column, transaction.getTransactionId() - previous);
+                    previous = transaction.getTransactionId();
+                }
+            });
+            writeColumn(output, column -> {
+                for (Transaction transaction : transactions) {
+                    writeVarLong(column, transaction.getAmount());
+                }
+            });
+            writeColumn(output, column -> {
+                long previous = 0;
+                for (Transaction transaction : transactions) {
+                    long second = transaction.getDate().toEpochSecond(ZoneOffset.UTC);
+                    writeVarLong(column, zigZag(second - previous));
+                    writeVarLong(column, transaction.getDate().getNano());
+                    previous = second;
+                }
+            });
+            writeColumn(output, column -> {
+                for (Transaction transaction : transactions) {
+                    column.writeUTF(transaction.getIp());
+                }
+            });
+            writeColumn(output, column -> {
+                for (Transaction transaction : transactions) {
+                    column.writeUTF(transaction.getNumber());
+                }
+            });
+            writeColumn(output, column -> {
+                for (Transaction transaction : transactions) {
+                    column.writeByte(transaction.getRegion() == null ? -1 : transaction.getRegion().ordinal());
+                    column.writeByte(transaction.getResult() == null ? -1 : transaction.getResult().ordinal());
+                    column.writeByte(transaction.getFeedback() == null ? -1 : transaction.getFeedback().ordinal());
+                }
+            });
+
+            output.flush();
+            channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new Header(path, transactions.size(), minId, maxId);
+    }
+
+    static Header readHeader(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 32))) {
+            checkHeader(input, path);
+            return new Header(path, input.readInt(), input.readLong(), input.readLong());
+        }
+    }
+
+    static TransactionSegment read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            checkHeader(input, path);
+            TransactionSegment segment = new TransactionSegment(input.readInt());
+            input.readLong();
+            input.readLong();
+            int rows = segment.size();
+
+            readColumn(input, column -> {
+                long previous = 0;
+                for (int row = 0; row < rows; row++) {
+                    previous += readVarLong(column);
+                    segment.ids[row] = previous;
+                }
+            });
+            readColumn(input, column -> {
+                for (int row = 0; row < rows; row++) {
+                    segment.amounts[row] = readVarLong(column);
+                }
+            });
+            readColumn(input, column -> {
+                long previous = 0;
+                for (int row = 0; row < rows; row++) {
+                    previous += unZigZag(readVarLong(column));
+                    segment.seconds[row] = previous;
+                    segment.nanos[row] = (int) readVarLong(column);
+                }
+            });
+            readColumn(input, column -> {
+                for (int row = 0; row < rows; row++) {
+                    segment.ips[row] = column.readUTF();
+                }
+            });
+            readColumn(input, column -> {
+                for (int row = 0; row < rows; row++) {
+                    segment.numbers[row] = column.readUTF();
+                }
+            });
+            readColumn(input, column -> {
+                for (int row = 0; row < rows; row++) {
+                    segment.regions[row] = column.readByte();
+                    segment.results[row] = column.readByte();
+                    segment.feedbacks[row] = column.readByte();
+                }
+            });
+
+            return segment;
+        }
+    }
+
+    private static void checkHeader(DataInputStream input, Path path) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Not a transaction segment: " + path);
+        }
+    }
+
+    private static void writeColumn(DataOutputStream output, ColumnWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream column = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytes)))) {
+            writer.write(column);
+        }
+
+        output.writeInt(bytes.size());
+        bytes.writeTo(output);
+    }
+
+    private static void readColumn(DataInputStream input, ColumnReader reader) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+
+        try (DataInputStream column = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes))))) {
+            reader.read(column);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    record Header(Path path, int rows, long minId, long maxId) {
+    }
+
+    private interface ColumnWriter {
+        void write(DataOutputStream column) throws IOException;
+    }
+
+    private interface ColumnReader {
+        void read(DataInputStream column) throws IOException;
+    }
+}
@@ -0,0 +1,28 @@
+package antifraud.fraud;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@DependsOn("schemaMigrations")
+public class TransactionSequence {
+    public static final int NODE_ID_SHIFT = 48;
+    private static final long NODE_ID_RANGE = 1L << NODE_ID_SHIFT;
+    private static final int ALLOCATION_SIZE = 50;
+
+    public TransactionSequence(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                               @Value("${antifraud.cluster.node-id:0}") int nodeId) {
+        long base = (long) nodeId << NODE_ID_SHIFT;
+        Long maxTransactionId = jdbcTemplate.queryForObject("SELECT MAX(transaction_id) FROM transactions WHERE transaction_id >= ? AND transaction_id < ?",
+                Long.class, base, base + NODE_ID_RANGE);
+        Long nextValue = jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TRANSACTIONS_SEQ'", Long.class);
+        long restartAt = maxTransactionId != null ? maxTransactionId + ALLOCATION_SIZE + 1 : base == 0 ? 1 : base + ALLOCATION_SIZE;
+
+        if (nextValue != null && (nextValue < restartAt || nextValue >= base + NODE_ID_RANGE)) {
+            jdbcTemplate.execute("ALTER SEQUENCE transactions_seq RESTART WITH " + restartAt);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package antifraud.fraud;
+
+import antifraud.exceptions.WriteBehindQueueFullException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@DependsOn("transactionSequence")
+public class TransactionWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionWriter.class);
+    private static final String UPSERT = "MERGE INTO transactions (transaction_id, amount, ip, number, region, date, result, feedback) KEY (transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final boolean fsync;
+    private final Path deadLetter;
+    private final BlockingQueue<PendingTransaction> queue;
+    private final TransactionJournal journal;
+    private final Thread drainer;
+    private long nextId;
+    private long maxId = -1;
+    private volatile long enqueued;
+    private long flushed;
+    private volatile boolean running = true;
+
+    public TransactionWriter(TransactionRepository transactionRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${antifraud.write-behind.enabled:false}") boolean enabled,
+                             @Value("${antifraud.write-behind.journal:../transactions.journal}") String journalPath,
+                             @Value("${antifraud.write-behind.journal-size:67108864}") int journalSize,
+                             @Value("${antifraud.write-behind.queue-size:10000}") int queueSize,
+                             @Value("${antifraud.write-behind.batch-size:500}") int batchSize,
+                             @Value("${antifraud.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis,
+                             @Value("${antifraud.write-behind.max-attempts:10}") int maxAttempts,
+                             @Value("${antifraud.write-behind.fsync:true}") boolean fsync,
+                             @Value("${antifraud.write-behind.dead-letter:../transactions.dead-letter}") String deadLetterPath) {
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.fsync = fsync;
+        this.deadLetter = Path.of(deadLetterPath);
+
+        if (!enabled) {
+            this.queue = null;
+            this.journal = null;
+            this.drainer = null;
+            return;
+        }
+
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.journal = new TransactionJournal(Path.of(journalPath), journalSize);
+
+        List<Transaction> journaled = journal.entries();
+        for (int i = 0; i < journaled.size(); i += batchSize) {
+            upsert(journaled.subList(i, Math.min(journaled.size(), i + batchSize)));
+        }
+        jdbcTemplate.execute("CHECKPOINT SYNC");
+        journal.reset();
+
+        this.drainer = new Thread(this::drain, "transaction-write-behind");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    public void write(Transaction transaction) {
+        if (!enabled) {
+            transactionRepository.save(transaction);
+            return;
+        }
+
+        enqueue(transaction);
+    }
+
+    public void writeAll(List<Transaction> transactions) {
+        if (!enabled) {
+            transactionRepository.saveAll(transactions);
+            return;
+        }
+
+        transactions.forEach(this::enqueue);
+    }
+
+    // True once everything enqueued before the call is in the database; false if that did not happen within the deadline.
+    public boolean flush() {
+        if (!enabled) {
+            return true;
+        }
+
+        long target = enqueued;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        synchronized (this) {
+            while (flushed < target && System.nanoTime() < deadline) {
+                try {
+                    wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            return flushed >= target;
+        }
+    }
+
+    public int queueSize() {
+        return enabled ? queue.size() : 0;
+    }
+
+    private void enqueue(Transaction transaction) {
+        transaction.setTransactionId(allocateId());
+        long position;
+
+        try {
+            synchronized (journal) {
+                if (queue.remainingCapacity() == 0 && !awaitCapacity()) {
+                    throw new WriteBehindQueueFullException();
+                }
+
+                position = journal.append(transaction);
+                if (position < 0) {
+                    throw new WriteBehindQueueFullException();
+                }
+
+                queue.add(new PendingTransaction(transaction, position));
+                enqueued++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteBehindQueueFullException();
+        }
+
+        if (fsync) {
+            journal.force(position);
+        }
+    }
+
+    private boolean awaitCapacity() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+
+        while (queue.remainingCapacity() == 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            journal.wait(1);
+        }
+
+        return true;
+    }
+
+    private synchronized long allocateId() {
+        if (nextId > maxId) {
+            long hi = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR transactions_seq", Long.class);
+            nextId = hi == 1 ? 1 : hi - ALLOCATION_SIZE + 1;
+            maxId = hi;
+        }
+
+        return nextId++;
+    }
+
+    private void drain() {
+        List<PendingTransaction> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeWithRetry(List<PendingTransaction> batch) throws InterruptedException {
+        long position = batch.get(batch.size() - 1).journalPosition();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                upsert(batch.stream().map(PendingTransaction::transaction).toList());
+                break;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    throw new InterruptedException();
+                }
+
+                // A constraint violation or bad row fails the same way on every attempt; isolate it instead of stalling the drainer.
+                if (e instanceof NonTransientDataAccessException || attempt >= maxAttempts) {
+                    LOGGER.warn("Writing a batch of {} transactions failed after {} attempts, retrying row by row", batch.size(), attempt, e);
+                    writeIndividually(batch);
+                    break;
+                }
+                Thread.sleep(1000);
+            }
+        }
+
+        journal.markFlushed(position);
+
+        if (journal.needsRelease()) {
+            jdbcTemplate.execute("CHECKPOINT SYNC");
+            journal.release(position);
+        }
+
+        synchronized (this) {
+            flushed += batch.size();
+            notifyAll();
+        }
+    }
+
+    private void writeIndividually(List<PendingTransaction> batch) {
+        for (PendingTransaction pending : batch) {
+            try {
+                upsert(List.of(pending.transaction()));
+            } catch (RuntimeException e) {
+                deadLetter(pending.transaction(), e);
+            }
+        }
+    }
+
+    private void deadLetter(Transaction transaction, RuntimeException cause) {
+        String line = String.join(",", String.valueOf(transaction.getTransactionId()), String.valueOf(transaction.getAmount()),
+                transaction.getIp(), transaction.getNumber(), String.valueOf(transaction.getRegion()), String.valueOf(transaction.getDate()),
+                String.valueOf(transaction.getResult()), String.valueOf(transaction.getFeedback())) + System.lineSeparator();
+
+        try {
+            Files.writeString(deadLetter, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            LOGGER.error("Transaction {} could not be written and was moved to {}", transaction.getTransactionId(), deadLetter, cause);
+        } catch (IOException e) {
+            LOGGER.error("Transaction {} could not be written or dead-lettered: {}", transaction.getTransactionId(), line.strip(), cause);
+        }
+    }
+
+    void upsert(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(UPSERT, transactions, transactions.size(), (statement, transaction) -> {
+            statement.setLong(1, transaction.getTransactionId());
+            statement.setLong(2, transaction.getAmount());
+            statement.setString(3, transaction.getIp());
+            statement.setString(4, transaction.getNumber());
+            statement.setString(5, transaction.getRegion() == null ? null : transaction.getRegion().name());
+            statement.setObject(6, transaction.getDate());
+            statement.setString(7, transaction.getResult() == null ? null : transaction.getResult().name());
+            statement.setString(8, transaction.getFeedback() == null ? null : transaction.getFeedback().name());
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private record PendingTransaction(Transaction transaction, long journalPosition) {
+    }
+}
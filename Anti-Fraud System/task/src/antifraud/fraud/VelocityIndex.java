@@ -0,0 +1,353 @@
+package antifraud.fraud;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@DependsOn("transactionWriter")
+public class VelocityIndex {
+    private static final Duration WINDOW = Duration.ofHours(1);
+    private static final long WINDOW_MILLIS = WINDOW.toMillis();
+    private static final int REGION_NONE = CompactTransaction.NO_REGION;
+    private static final int STRIPES = 64;
+
+    private final TransactionRepository transactionRepository;
+    private final LongObjectMap<CardActivity>[] cards = newStripes();
+    private final AtomicLong latest = new AtomicLong(Long.MIN_VALUE);
+    private volatile long coveredSince = Long.MIN_VALUE;
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+    public VelocityIndex(TransactionRepository transactionRepository, SnapshotStore snapshotStore) {
+        this.transactionRepository = transactionRepository;
+        rebuild(snapshotStore.loaded());
+    }
+
+    private void rebuild(FraudSnapshot snapshot) {
+        LocalDateTime latestDate = transactionRepository.findLatestDate();
+
+        if (latestDate == null) {
+            return;
+        }
+
+        LocalDateTime from = latestDate.minus(WINDOW);
+        List<Transaction> transactions;
+
+        if (snapshot == null) {
+            transactions = transactionRepository.findAllByDateBetween(from, latestDate);
+        } else {
+            snapshot.forEachActivity(CompactTransaction.toMillis(from), this::record);
+            transactions = transactionRepository.findAllByTransactionIdGreaterThanAndDateBetween(snapshot.maxTransactionId(), from, latestDate);
+        }
+
+        for (Transaction transaction : transactions) {
+            CompactTransaction compact = CompactTransaction.of(transaction);
+
+            if (compact != null) {
+                record(compact);
+            }
+        }
+        coveredSince = snapshot == null ? CompactTransaction.toMillis(from) : Math.max(snapshot.coveredSince(), CompactTransaction.toMillis(from));
+    }
+
+    public void record(CompactTransaction transaction) {
+        long time = transaction.time();
+
+        LongObjectMap<CardActivity> stripe = stripeFor(transaction.number());
+
+        synchronized (stripe) {
+            CardActivity activity = stripe.get(transaction.number());
+
+            if (activity == null) {
+                activity = new CardActivity();
+                stripe.put(transaction.number(), activity);
+            }
+
+            activity.add(time, transaction.region(), transaction.ip());
+        }
+
+        advance(time);
+    }
+
+    public Correlation correlate(CompactTransaction transaction) {
+        long to = transaction.time();
+        long from = to - WINDOW_MILLIS;
+        LongObjectMap<CardActivity> stripe = stripeFor(transaction.number());
+        CardActivity activity;
+
+        synchronized (stripe) {
+            activity = stripe.get(transaction.number());
+        }
+
+        if (activity != null && from >= coveredSince) {
+            Correlation correlation = activity.correlation(from, to);
+
+            if (correlation != null) {
+                return correlation;
+            }
+        }
+
+        return correlateWithRepository(transaction, activity, from, to);
+    }
+
+    private Correlation correlateWithRepository(CompactTransaction transaction, CardActivity activity, long from, long to) {
+        String number = Identifiers.formatCardNumber(transaction.number());
+        LocalDateTime date = transaction.date();
+        LocalDateTime oneHourBeforeTransaction = date.minus(WINDOW);
+        int regionMask = regionBit(transaction.region());
+        Set<Integer> ips = new HashSet<>();
+        ips.add(transaction.ip());
+
+        for (Transaction.Region region : transactionRepository.findUniqueRegionsInBetweenDates(number, oneHourBeforeTransaction, date)) {
+            if (region != null) {
+                regionMask |= regionBit(region.ordinal());
+            }
+        }
+
+        for (String ip : transactionRepository.findUniqueIPsInBetweenDates(number, oneHourBeforeTransaction, date)) {
+            ips.add((int) Identifiers.parseIp(ip));
+        }
+
+        if (activity != null) {
+            regionMask |= activity.collect(from, to, ips);
+        }
+
+        return new Correlation(Integer.bitCount(regionMask), ips.size());
+    }
+
+    private void advance(long time) {
+        long current = latest.accumulateAndGet(time, Math::max);
+
+        long due = nextSweep.get();
+
+        if (current >= due && nextSweep.compareAndSet(due, current + WINDOW_MILLIS)) {
+            sweep(current - WINDOW_MILLIS);
+        }
+    }
+
+    private void sweep(long threshold) {
+        for (LongObjectMap<CardActivity> stripe : cards) {
+            synchronized (stripe) {
+                stripe.removeIf(activity -> activity.lastTime() < threshold);
+            }
+        }
+
+        if (threshold > coveredSince) {
+            coveredSince = threshold;
+        }
+    }
+
+    long coveredSince() {
+        return coveredSince;
+    }
+
+    void forEachActivity(ActivityVisitor visitor) {
+        for (LongObjectMap<CardActivity> stripe : cards) {
+            synchronized (stripe) {
+                stripe.forEachEntry((number, activity) -> activity.visit(number, visitor));
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+
+        for (LongObjectMap<CardActivity> stripe : cards) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+
+        return size;
+    }
+
+    public long memoryFootprint() {
+        long[] bytes = {64};
+
+        for (LongObjectMap<CardActivity> stripe : cards) {
+            synchronized (stripe) {
+                stripe.forEachValue(activity -> bytes[0] += 72 + activity.footprint());
+            }
+        }
+
+        return bytes[0];
+    }
+
+    private LongObjectMap<CardActivity> stripeFor(long number) {
+        return cards[stripe(number)];
+    }
+
+    static int stripe(long number) {
+        return BloomFilter.mix(number) >>> 26;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LongObjectMap<CardActivity>[] newStripes() {
+        LongObjectMap<CardActivity>[] stripes = new LongObjectMap[STRIPES];
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectMap<>(16);
+        }
+
+        return stripes;
+    }
+
+    private static int regionBit(int region) {
+        return region == REGION_NONE ? 0 : 1 << region;
+    }
+
+    public record Correlation(int uniqueRegions, int uniqueIps) {
+    }
+
+    interface ActivityVisitor {
+        void visit(long number, long[] times, byte[] regions, int[] ips, int from, int to);
+    }
+
+    private static class CardActivity {
+        private long[] times = new long[4];
+        private byte[] regions = new byte[4];
+        private int[] ips = new int[4];
+        private int head;
+        private int tail;
+        private long expiredBefore = Long.MIN_VALUE;
+
+        private final int[] regionCounts = new int[Transaction.Region.values().length];
+        private int regionMask;
+        private int[] ipValues = new int[2];
+        private int[] ipCounts = new int[2];
+        private int distinctIps;
+
+        synchronized void add(long time, int region, int ip) {
+            if (time < expiredBefore) {
+                return;
+            }
+
+            ensureCapacity();
+
+            int position = tail;
+            while (position > head && times[position - 1] > time) {
+                position--;
+            }
+
+            if (position < tail) {
+                System.arraycopy(times, position, times, position + 1, tail - position);
+                System.arraycopy(regions, position, regions, position + 1, tail - position);
+                System.arraycopy(ips, position, ips, position + 1, tail - position);
+            }
+
+            times[position] = time;
+            regions[position] = (byte) region;
+            ips[position] = ip;
+            tail++;
+            count(region, ip, 1);
+
+            expire(times[tail - 1] - WINDOW_MILLIS);
+        }
+
+        synchronized void visit(long number, ActivityVisitor visitor) {
+            visitor.visit(number, times, regions, ips, head, tail);
+        }
+
+        synchronized long lastTime() {
+            return tail == head ? Long.MIN_VALUE : times[tail - 1];
+        }
+
+        synchronized Correlation correlation(long from, long to) {
+            if (from < expiredBefore) {
+                return null;
+            }
+
+            if (tail > head && to >= times[tail - 1]) {
+                return new Correlation(Integer.bitCount(regionMask), distinctIps);
+            }
+
+            Set<Integer> seen = new HashSet<>();
+            int mask = collect(from, to, seen);
+
+            return new Correlation(Integer.bitCount(mask), seen.size());
+        }
+
+        synchronized int collect(long from, long to, Set<Integer> seenIps) {
+            int mask = 0;
+
+            for (int i = head; i < tail && times[i] <= to; i++) {
+                if (times[i] >= from) {
+                    mask |= regionBit(regions[i]);
+                    seenIps.add(ips[i]);
+                }
+            }
+
+            return mask;
+        }
+
+        synchronized long footprint() {
+            return 8L * times.length + regions.length + 4L * ips.length
+                    + 4L * regionCounts.length + 4L * ipValues.length + 4L * ipCounts.length;
+        }
+
+        private void expire(long threshold) {
+            while (head < tail && times[head] < threshold) {
+                count(regions[head], ips[head], -1);
+                head++;
+            }
+
+            if (threshold > expiredBefore) {
+                expiredBefore = threshold;
+            }
+        }
+
+        private void ensureCapacity() {
+            if (tail < times.length) {
+                return;
+            }
+
+            int size = tail - head;
+            int capacity = size + 1 > times.length / 2 ? times.length * 2 : times.length;
+
+            times = Arrays.copyOfRange(times, head, head + capacity);
+            regions = Arrays.copyOfRange(regions, head, head + capacity);
+            ips = Arrays.copyOfRange(ips, head, head + capacity);
+            head = 0;
+            tail = size;
+        }
+
+        private void count(int region, int ip, int delta) {
+            if (region != REGION_NONE) {
+                regionCounts[region] += delta;
+                if (regionCounts[region] == 0) {
+                    regionMask &= ~(1 << region);
+                } else {
+                    regionMask |= 1 << region;
+                }
+            }
+
+            for (int i = 0; i < distinctIps; i++) {
+                if (ipValues[i] == ip) {
+                    ipCounts[i] += delta;
+                    if (ipCounts[i] == 0) {
+                        distinctIps--;
+                        ipValues[i] = ipValues[distinctIps];
+                        ipCounts[i] = ipCounts[distinctIps];
+                    }
+                    return;
+                }
+            }
+
+            if (distinctIps == ipValues.length) {
+                ipValues = Arrays.copyOf(ipValues, distinctIps * 2);
+                ipCounts = Arrays.copyOf(ipCounts, distinctIps * 2);
+            }
+
+            ipValues[distinctIps] = ip;
+            ipCounts[distinctIps] = delta;
+            distinctIps++;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Transaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AmountRule implements Rule {
+    @Override
+    public String reason() {
+        return "amount";
+    }
+
+    @Override
+    public int cost() {
+        return 1;
+    }
+
+    @Override
+    public Transaction.Result evaluate(RuleContext context) {
+        long amount = context.transaction().amount();
+
+        if (amount > context.manualProcessingLimit()) {
+            return Transaction.Result.PROHIBITED;
+        }
+
+        if (amount > context.allowedLimit()) {
+            return Transaction.Result.MANUAL_PROCESSING;
+        }
+
+        return Transaction.Result.ALLOWED;
+    }
+}
@@ -0,0 +1,28 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Transaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IpCorrelationRule implements Rule {
+    @Override
+    public String reason() {
+        return "ip-correlation";
+    }
+
+    @Override
+    public int cost() {
+        return 10;
+    }
+
+    @Override
+    public Transaction.Result evaluate(RuleContext context) {
+        int ips = context.correlation().uniqueIps();
+
+        if (ips > 3) {
+            return Transaction.Result.PROHIBITED;
+        }
+
+        return ips == 3 ? Transaction.Result.MANUAL_PROCESSING : Transaction.Result.ALLOWED;
+    }
+}
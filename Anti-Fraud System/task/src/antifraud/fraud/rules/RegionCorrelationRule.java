@@ -0,0 +1,28 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Transaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RegionCorrelationRule implements Rule {
+    @Override
+    public String reason() {
+        return "region-correlation";
+    }
+
+    @Override
+    public int cost() {
+        return 10;
+    }
+
+    @Override
+    public Transaction.Result evaluate(RuleContext context) {
+        int regions = context.correlation().uniqueRegions();
+
+        if (regions > 3) {
+            return Transaction.Result.PROHIBITED;
+        }
+
+        return regions == 3 ? Transaction.Result.MANUAL_PROCESSING : Transaction.Result.ALLOWED;
+    }
+}
@@ -0,0 +1,11 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Transaction;
+
+public interface Rule {
+    String reason();
+
+    int cost();
+
+    Transaction.Result evaluate(RuleContext context);
+}
@@ -0,0 +1,48 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.LimitStore;
+import antifraud.fraud.VelocityIndex;
+
+public class RuleContext {
+    private final CompactTransaction transaction;
+    private final LimitStore limitStore;
+    private final VelocityIndex velocityIndex;
+    private long allowedLimit = -1;
+    private long manualProcessingLimit = -1;
+    private VelocityIndex.Correlation correlation;
+
+    RuleContext(CompactTransaction transaction, LimitStore limitStore, VelocityIndex velocityIndex) {
+        this.transaction = transaction;
+        this.limitStore = limitStore;
+        this.velocityIndex = velocityIndex;
+    }
+
+    public CompactTransaction transaction() {
+        return transaction;
+    }
+
+    public synchronized long allowedLimit() {
+        if (allowedLimit < 0) {
+            allowedLimit = limitStore.getAllowedLimit(transaction.number());
+        }
+
+        return allowedLimit;
+    }
+
+    public synchronized long manualProcessingLimit() {
+        if (manualProcessingLimit < 0) {
+            manualProcessingLimit = limitStore.getManualProcessingLimit(transaction.number());
+        }
+
+        return manualProcessingLimit;
+    }
+
+    public synchronized VelocityIndex.Correlation correlation() {
+        if (correlation == null) {
+            correlation = velocityIndex.correlate(transaction);
+        }
+
+        return correlation;
+    }
+}
@@ -0,0 +1,253 @@
+package antifraud.fraud.rules;
+
+import antifraud.VirtualThreads;
+import antifraud.fraud.CompactTransaction;
+import antifraud.fraud.LimitStore;
+import antifraud.fraud.Transaction;
+import antifraud.fraud.VelocityIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class RuleEngine {
+    private static final int MAX_RULES = Integer.SIZE;
+    private static final int MAX_CACHED_RULES = 12;
+    private static final Decision ALLOWED = new Decision(Transaction.Result.ALLOWED, "none");
+
+    private final List<RegisteredRule> rules;
+    private final LimitStore limitStore;
+    private final VelocityIndex velocityIndex;
+    private final boolean completeInfo;
+    private final long timeoutNanos;
+    private final Transaction.Result fallbackResult;
+    private final ExecutorService executor;
+    private final Decision[] prohibitedDecisions;
+    private final Decision[] manualProcessingDecisions;
+
+    public RuleEngine(List<Rule> rules, LimitStore limitStore, VelocityIndex velocityIndex, MeterRegistry meterRegistry,
+                      @Value("${antifraud.rules.complete-info:true}") boolean completeInfo,
+                      @Value("${antifraud.rules.parallel:false}") boolean parallel,
+                      @Value("${antifraud.rules.timeout-ms:200}") long timeoutMillis,
+                      @Value("${antifraud.rules.fallback-result:MANUAL_PROCESSING}") Transaction.Result fallbackResult) {
+        this.rules = rules.stream()
+                .sorted(Comparator.comparingInt(Rule::cost).thenComparing(Rule::reason))
+                .map(rule -> new RegisteredRule(rule, meterRegistry))
+                .toList();
+        if (this.rules.size() > MAX_RULES) {
+            throw new IllegalStateException("At most " + MAX_RULES + " rules are supported, found " + this.rules.size());
+        }
+        this.limitStore = limitStore;
+        this.velocityIndex = velocityIndex;
+        this.completeInfo = completeInfo;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.fallbackResult = fallbackResult;
+        this.executor = parallel && this.rules.size() > 1 ? VirtualThreads.newExecutor("rule") : null;
+        this.prohibitedDecisions = this.rules.size() <= MAX_CACHED_RULES ? new Decision[1 << this.rules.size()] : null;
+        this.manualProcessingDecisions = this.rules.size() <= MAX_CACHED_RULES ? new Decision[1 << this.rules.size()] : null;
+    }
+
+    public Decision evaluate(CompactTransaction transaction) {
+        RuleContext context = new RuleContext(transaction, limitStore, velocityIndex);
+        long outcome = executor == null ? evaluateSequentially(context) : evaluateInParallel(context);
+        int prohibited = (int) outcome;
+        int manualProcessing = (int) (outcome >>> 32);
+
+        if (prohibited != 0) {
+            return decision(Transaction.Result.PROHIBITED, prohibited, prohibitedDecisions);
+        }
+
+        if (manualProcessing != 0) {
+            return decision(Transaction.Result.MANUAL_PROCESSING, manualProcessing, manualProcessingDecisions);
+        }
+
+        return ALLOWED;
+    }
+
+    private long evaluateSequentially(RuleContext context) {
+        int prohibited = 0;
+        int manualProcessing = 0;
+
+        for (int i = 0; i < rules.size(); i++) {
+            RegisteredRule rule = rules.get(i);
+
+            if (!completeInfo && prohibited != 0) {
+                rule.skips.increment();
+                continue;
+            }
+
+            Transaction.Result result = rule.evaluate(context);
+
+            if (result == Transaction.Result.PROHIBITED) {
+                prohibited |= 1 << i;
+            } else if (result == Transaction.Result.MANUAL_PROCESSING) {
+                manualProcessing |= 1 << i;
+            }
+        }
+
+        return outcome(prohibited, manualProcessing);
+    }
+
+    private long evaluateInParallel(RuleContext context) {
+        List<Future<Transaction.Result>> futures = new ArrayList<>(rules.size());
+
+        for (RegisteredRule rule : rules) {
+            futures.add(executor.submit(() -> rule.evaluate(context)));
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        int prohibited = 0;
+        int manualProcessing = 0;
+
+        for (int i = 0; i < rules.size(); i++) {
+            RegisteredRule rule = rules.get(i);
+            Future<Transaction.Result> future = futures.get(i);
+            Transaction.Result result;
+
+            if (!completeInfo && prohibited != 0 && future.cancel(true)) {
+                rule.skips.increment();
+                continue;
+            }
+
+            try {
+                result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException | CancellationException e) {
+                future.cancel(true);
+                rule.failures.increment();
+                result = fallbackResult;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(remaining -> remaining.cancel(true));
+                rule.failures.increment();
+                result = fallbackResult;
+                deadline = System.nanoTime();
+            }
+
+            if (result == Transaction.Result.PROHIBITED) {
+                prohibited |= 1 << i;
+            } else if (result == Transaction.Result.MANUAL_PROCESSING) {
+                manualProcessing |= 1 << i;
+            }
+        }
+
+        return outcome(prohibited, manualProcessing);
+    }
+
+    private static long outcome(int prohibited, int manualProcessing) {
+        return (long) manualProcessing << 32 | Integer.toUnsignedLong(prohibited);
+    }
+
+    private Decision decision(Transaction.Result result, int mask, Decision[] cache) {
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            rules.get(Integer.numberOfTrailingZeros(bits)).reported.increment();
+        }
+
+        if (cache == null) {
+            return new Decision(result, info(mask));
+        }
+
+        Decision decision = cache[mask];
+
+        if (decision == null) {
+            decision = new Decision(result, info(mask));
+            cache[mask] = decision;
+        }
+
+        return decision;
+    }
+
+    public Map<String, RuleStatistics> statistics() {
+        Map<String, RuleStatistics> statistics = new LinkedHashMap<>();
+
+        for (RegisteredRule rule : rules) {
+            long evaluations = rule.evaluations.sum();
+            long nanos = rule.nanos.sum();
+            statistics.put(rule.rule.reason(), new RuleStatistics(rule.rule.cost(), evaluations, rule.skips.sum(), rule.failures.sum(),
+                    rule.prohibited.sum(), rule.manualProcessing.sum(), nanos, evaluations == 0 ? 0 : nanos / evaluations));
+        }
+
+        return statistics;
+    }
+
+    private String info(int mask) {
+        String[] reasons = new String[Integer.bitCount(mask)];
+
+        for (int i = 0, bits = mask; bits != 0; i++, bits &= bits - 1) {
+            reasons[i] = rules.get(Integer.numberOfTrailingZeros(bits)).rule.reason();
+        }
+
+        Arrays.sort(reasons);
+        return String.join(", ", reasons);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public record Decision(Transaction.Result result, String info) {
+    }
+
+    public record RuleStatistics(int cost, long evaluations, long skips, long failures, long prohibited, long manualProcessing,
+                                 long totalNanos, long meanNanos) {
+    }
+
+    private static class RegisteredRule {
+        private final Rule rule;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder skips = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder prohibited = new LongAdder();
+        private final LongAdder manualProcessing = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final Timer timer;
+        private final Counter reported;
+
+        RegisteredRule(Rule rule, MeterRegistry meterRegistry) {
+            this.rule = rule;
+            this.timer = Timer.builder("antifraud.rule.evaluation")
+                    .tag("rule", rule.reason())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.reported = meterRegistry.counter("antifraud.decision.reasons", "reason", rule.reason());
+            FunctionCounter.builder("antifraud.rule.skips", skips, LongAdder::sum)
+                    .tag("rule", rule.reason())
+                    .register(meterRegistry);
+            FunctionCounter.builder("antifraud.rule.failures", failures, LongAdder::sum)
+                    .tag("rule", rule.reason())
+                    .register(meterRegistry);
+        }
+
+        Transaction.Result evaluate(RuleContext context) {
+            long start = System.nanoTime();
+            Transaction.Result result = rule.evaluate(context);
+            long elapsed = System.nanoTime() - start;
+            nanos.add(elapsed);
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            evaluations.increment();
+
+            if (result == Transaction.Result.PROHIBITED) {
+                prohibited.increment();
+            } else if (result == Transaction.Result.MANUAL_PROCESSING) {
+                manualProcessing.increment();
+            }
+
+            return result;
+        }
+    }
+}
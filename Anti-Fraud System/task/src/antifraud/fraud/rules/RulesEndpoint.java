@@ -0,0 +1,22 @@
+package antifraud.fraud.rules;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "rules")
+public class RulesEndpoint {
+    private final RuleEngine ruleEngine;
+
+    public RulesEndpoint(RuleEngine ruleEngine) {
+        this.ruleEngine = ruleEngine;
+    }
+
+    @ReadOperation
+    public Map<String, RuleEngine.RuleStatistics> rules() {
+        return ruleEngine.statistics();
+    }
+}
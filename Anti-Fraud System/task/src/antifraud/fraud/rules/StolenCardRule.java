@@ -0,0 +1,29 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Blacklist;
+import antifraud.fraud.Transaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StolenCardRule implements Rule {
+    private final Blacklist blacklist;
+
+    public StolenCardRule(Blacklist blacklist) {
+        this.blacklist = blacklist;
+    }
+
+    @Override
+    public String reason() {
+        return "card-number";
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public Transaction.Result evaluate(RuleContext context) {
+        return blacklist.isStolenCard(context.transaction().number()) ? Transaction.Result.PROHIBITED : Transaction.Result.ALLOWED;
+    }
+}
@@ -0,0 +1,29 @@
+package antifraud.fraud.rules;
+
+import antifraud.fraud.Blacklist;
+import antifraud.fraud.Transaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SuspiciousIpRule implements Rule {
+    private final Blacklist blacklist;
+
+    public SuspiciousIpRule(Blacklist blacklist) {
+        this.blacklist = blacklist;
+    }
+
+    @Override
+    public String reason() {
+        return "ip";
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public Transaction.Result evaluate(RuleContext context) {
+        return blacklist.isSuspiciousIp(context.transaction().ip()) ? Transaction.Result.PROHIBITED : Transaction.Result.ALLOWED;
+    }
+}
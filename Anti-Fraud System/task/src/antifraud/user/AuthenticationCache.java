@@ -0,0 +1,138 @@
+package antifraud.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class AuthenticationCache implements UserCache {
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final long ttlMillis;
+    private final Map<String, VerifiedCredential> credentials;
+    private final Map<String, UserDetails> users;
+    private long generation;
+
+    public AuthenticationCache(@Value("${antifraud.auth-cache.ttl-seconds:300}") long ttlSeconds,
+                               @Value("${antifraud.auth-cache.max-size:10000}") int maxSize) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.credentials = boundedMap(maxSize);
+        this.users = boundedMap(maxSize);
+    }
+
+    public UserDetails getVerifiedUser(String username, String password) {
+        VerifiedCredential credential;
+
+        synchronized (credentials) {
+            credential = credentials.get(username);
+        }
+
+        if (credential == null || credential.expiresAt() < System.currentTimeMillis()
+                || !MessageDigest.isEqual(credential.hash(), hash(username, password))) {
+            return null;
+        }
+
+        return credential.user();
+    }
+
+    public long generation() {
+        synchronized (credentials) {
+            return generation;
+        }
+    }
+
+    public void putVerifiedUser(String username, String password, UserDetails user, long observedGeneration) {
+        VerifiedCredential credential = new VerifiedCredential(hash(username, password), System.currentTimeMillis() + ttlMillis, user);
+
+        synchronized (credentials) {
+            if (generation != observedGeneration) {
+                removeUserFromCache(username);
+                return;
+            }
+
+            credentials.put(username, credential);
+        }
+    }
+
+    public void invalidate(String username) {
+        synchronized (credentials) {
+            generation++;
+            credentials.remove(username);
+            removeUserFromCache(username);
+        }
+    }
+
+    public int size() {
+        synchronized (credentials) {
+            return credentials.size();
+        }
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails user;
+
+        synchronized (users) {
+            user = users.get(username);
+        }
+
+        return user == null ? null : org.springframework.security.core.userdetails.User.withUserDetails(user).build();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        UserDetails copy = org.springframework.security.core.userdetails.User.withUserDetails(user).build();
+
+        synchronized (users) {
+            users.put(user.getUsername(), copy);
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        synchronized (users) {
+            users.remove(username);
+        }
+    }
+
+    private byte[] hash(String username, String password) {
+        return mac.get().doFinal((username + ':' + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <V> Map<String, V> boundedMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private record VerifiedCredential(byte[] hash, long expiresAt, UserDetails user) {
+    }
+}
@@ -0,0 +1,130 @@
+package antifraud.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TokenService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final UserRepository userRepository;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final long ttlSeconds;
+    // Token versions as stored on the users row, -1 for usernames without one.
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public TokenService(UserRepository userRepository,
+                        @Value("${antifraud.token.ttl-seconds:900}") long ttlSeconds,
+                        @Value("${antifraud.token.secret:}") String configuredSecret,
+                        @Value("${antifraud.cluster.enabled:false}") boolean clustered) {
+        byte[] secret;
+
+        if (configuredSecret.isEmpty() && clustered) {
+            throw new IllegalStateException("antifraud.token.secret must be set when clustering is enabled, every node has to verify every token");
+        }
+
+        if (configuredSecret.isEmpty()) {
+            LOGGER.warn("antifraud.token.secret is not set, tokens are signed with a random key and only this node accepts them");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = configuredSecret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.userRepository = userRepository;
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long ttlSeconds() {
+        return ttlSeconds;
+    }
+
+    public long version(String username) {
+        return versions.computeIfAbsent(username, this::loadVersion);
+    }
+
+    public String issue(String username, User.Role role, long version) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        byte[] payload = (version + ":" + expiresAt + ":" + role.name() + ":" + username).getBytes(StandardCharsets.UTF_8);
+
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    public Token verify(String token) {
+        int dot = token.indexOf('.');
+
+        if (dot < 0) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (!MessageDigest.isEqual(signature, sign(payload))) {
+            return null;
+        }
+
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split(":", 4);
+        long version = Long.parseLong(parts[0]);
+        long expiresAt = Long.parseLong(parts[1]);
+
+        if (expiresAt < System.currentTimeMillis() / 1000 || version != version(parts[3])) {
+            return null;
+        }
+
+        return new Token(parts[3], User.Role.valueOf(parts[2]));
+    }
+
+    public void update(String username, long version) {
+        versions.put(username, version);
+    }
+
+    public void forget(String username) {
+        versions.remove(username);
+    }
+
+    private long loadVersion(String username) {
+        User user = userRepository.findByUsername(username);
+        return user == null ? -1 : user.getTokenVersion();
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Token(String username, User.Role role) {
+    }
+}
@@ -6,7 +6,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_username", columnNames = "username"))
 @Data
 public class User {
     @Id
@@ -21,6 +21,8 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
     private boolean locked;
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private long tokenVersion;
 
     public AntiFraudController.UserResponse toResponse() {
         return new AntiFraudController.UserResponse(id, name, username, role.name());
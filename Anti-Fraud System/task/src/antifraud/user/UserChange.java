@@ -0,0 +1,16 @@
+package antifraud.user;
+
+// The full row rather than a diff, so a peer can apply it whether or not it has seen the user before.
+public record UserChange(Kind kind, String username, String name, String password, User.Role role, boolean locked, long tokenVersion) {
+    public enum Kind {
+        SAVED, DELETED
+    }
+
+    static UserChange saved(User user) {
+        return new UserChange(Kind.SAVED, user.getUsername(), user.getName(), user.getPassword(), user.getRole(), user.isLocked(), user.getTokenVersion());
+    }
+
+    static UserChange deleted(String username) {
+        return new UserChange(Kind.DELETED, username, null, null, null, false, -1);
+    }
+}
@@ -3,7 +3,9 @@ package antifraud.user;
 import antifraud.exceptions.AdminAccessChangeException;
 import antifraud.exceptions.UserAlreadyExistsException;
 import antifraud.exceptions.UserAlreadyHasRoleException;
+import antifraud.exceptions.UserLockedException;
 import antifraud.exceptions.UserNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -14,10 +16,17 @@ import java.util.List;
 public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final AuthenticationCache authenticationCache;
+    private final TokenService tokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(PasswordEncoder passwordEncoder, UserRepository userRepository) {
+    public UserService(PasswordEncoder passwordEncoder, UserRepository userRepository, AuthenticationCache authenticationCache, TokenService tokenService,
+                       ApplicationEventPublisher eventPublisher) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.authenticationCache = authenticationCache;
+        this.tokenService = tokenService;
+        this.eventPublisher = eventPublisher;
     }
 
     public User registerUser(User user) {
@@ -35,8 +44,14 @@ public class UserService {
         }
 
         user.setLocked(user.getRole() == User.Role.MERCHANT);
+        // Seeded from the clock so a re-registered username does not accept tokens issued to the deleted account.
+        user.setTokenVersion(System.currentTimeMillis());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        tokenService.update(saved.getUsername(), saved.getTokenVersion());
+        eventPublisher.publishEvent(UserChange.saved(saved));
+
+        return saved;
     }
 
     public List<User> getUsers() {
@@ -51,6 +66,9 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        authenticationCache.invalidate(username);
+        tokenService.forget(username);
+        eventPublisher.publishEvent(UserChange.deleted(username));
     }
 
     public User changeUserRole(String username, User.Role role) {
@@ -65,8 +83,13 @@ public class UserService {
         }
 
         user.setRole(role);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        user = userRepository.save(user);
+        authenticationCache.invalidate(username);
+        tokenService.update(username, user.getTokenVersion());
+        eventPublisher.publishEvent(UserChange.saved(user));
 
-        return userRepository.save(user);
+        return user;
     }
 
     public void changeUserAccess(String username, boolean locked) {
@@ -81,7 +104,58 @@ public class UserService {
         }
 
         user.setLocked(locked);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+
+        user = userRepository.save(user);
+        authenticationCache.invalidate(username);
+        tokenService.update(username, user.getTokenVersion());
+        eventPublisher.publishEvent(UserChange.saved(user));
+    }
+
+    // Applies a change replicated from another node without publishing it again. The change carries the stored token
+    // version, so every node accepts the same tokens.
+    public void applyUserChange(UserChange change) {
+        User user = userRepository.findByUsername(change.username());
+
+        if (change.kind() == UserChange.Kind.DELETED) {
+            if (user != null) {
+                userRepository.delete(user);
+            }
+            authenticationCache.invalidate(change.username());
+            tokenService.forget(change.username());
+            return;
+        }
 
+        if (user == null) {
+            user = new User();
+            user.setUsername(change.username());
+        }
+        user.setName(change.name());
+        user.setPassword(change.password());
+        user.setRole(change.role());
+        user.setLocked(change.locked());
+        user.setTokenVersion(change.tokenVersion());
         userRepository.save(user);
+
+        authenticationCache.invalidate(change.username());
+        tokenService.update(change.username(), change.tokenVersion());
+    }
+
+    public long getTokenTtlSeconds() {
+        return tokenService.ttlSeconds();
+    }
+
+    public String issueToken(String username) {
+        User user = userRepository.findByUsername(username);
+
+        if (user == null) {
+            throw new UserNotFoundException();
+        }
+
+        if (user.isLocked()) {
+            throw new UserLockedException();
+        }
+
+        return tokenService.issue(username, user.getRole(), user.getTokenVersion());
     }
 }
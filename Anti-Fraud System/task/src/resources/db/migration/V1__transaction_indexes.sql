@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS idx_transactions_number_date ON transactions (number, date);
+CREATE INDEX IF NOT EXISTS idx_transactions_date ON transactions (date);
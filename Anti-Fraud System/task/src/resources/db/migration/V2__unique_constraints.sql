@@ -0,0 +1,8 @@
+DELETE FROM cards WHERE id NOT IN (SELECT MIN(id) FROM cards GROUP BY number);
+ALTER TABLE cards ADD CONSTRAINT IF NOT EXISTS uk_cards_number UNIQUE (number);
+DELETE FROM ips WHERE id NOT IN (SELECT MIN(id) FROM ips GROUP BY ip);
+ALTER TABLE ips ADD CONSTRAINT IF NOT EXISTS uk_ips_ip UNIQUE (ip);
+DELETE FROM users WHERE id NOT IN (SELECT MIN(id) FROM users GROUP BY username);
+ALTER TABLE users ADD CONSTRAINT IF NOT EXISTS uk_users_username UNIQUE (username);
+DELETE FROM limits WHERE id NOT IN (SELECT MIN(id) FROM limits GROUP BY number, result);
+ALTER TABLE limits ADD CONSTRAINT IF NOT EXISTS uk_limits_number_result UNIQUE (number, result);
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS stream_offsets (consumer VARCHAR(64) PRIMARY KEY, input_offset BIGINT NOT NULL, output_position BIGINT NOT NULL);
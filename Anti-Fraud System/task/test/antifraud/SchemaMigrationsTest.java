@@ -0,0 +1,125 @@
+package antifraud;
+
+import antifraud.fraud.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaMigrationsTest {
+    private static final String NUMBER = "4000008449433403";
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 1, 1, 11, 0);
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionRepository transactionRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:schema_migrations_test;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // The schema Hibernate builds from the entities, with the naming Spring Boot configures.
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("antifraud.fraud", "antifraud.user");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+                "hibernate.implicit_naming_strategy", "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy",
+                "hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                    statements.add(sql);
+                    return sql;
+                }));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        transactionRepository = new JpaRepositoryFactory(entityManager).getRepository(TransactionRepository.class);
+
+        // A database from before the migrations: no indexes or unique constraints, and duplicate rows they would reject.
+        jdbcTemplate.execute("DROP INDEX idx_transactions_number_date");
+        jdbcTemplate.execute("DROP INDEX idx_transactions_date");
+        jdbcTemplate.execute("ALTER TABLE cards DROP CONSTRAINT uk_cards_number");
+        jdbcTemplate.execute("ALTER TABLE ips DROP CONSTRAINT uk_ips_ip");
+        jdbcTemplate.execute("ALTER TABLE users DROP CONSTRAINT uk_users_username");
+        jdbcTemplate.execute("ALTER TABLE limits DROP CONSTRAINT uk_limits_number_result");
+
+        jdbcTemplate.update("INSERT INTO cards (number) VALUES (?), (?), (?)", NUMBER, NUMBER, "4000003305160034");
+        jdbcTemplate.update("INSERT INTO ips (ip) VALUES ('10.0.0.1'), ('10.0.0.1'), ('10.0.0.1'), ('10.0.0.2')");
+        jdbcTemplate.update("INSERT INTO users (name, username, password, role, locked) VALUES ('A', 'a', 'x', 'ADMINISTRATOR', FALSE), ('A', 'a', 'y', 'MERCHANT', TRUE)");
+        jdbcTemplate.update("INSERT INTO limits (number, result, limit_amount) VALUES (?, 'ALLOWED', 200), (?, 'ALLOWED', 300), (?, 'MANUAL_PROCESSING', 1500)",
+                NUMBER, NUMBER, NUMBER);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_id, amount, ip, number, region, date, result)
+                SELECT X, MOD(X, 2000) + 1, CONCAT('10.0.', MOD(X, 256), '.1'), CONCAT('4000', LPAD(CAST(MOD(X, 5000) AS VARCHAR), 12, '0')),
+                       'EAP', DATEADD(SECOND, X, TIMESTAMP '2026-01-01 00:00:00'), 'ALLOWED'
+                FROM SYSTEM_RANGE(1, 100000)
+                """);
+
+        new SchemaMigrations(entityManagerFactory, dataSource, jdbcTemplate);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @After
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void uniqueConstraintsKeepTheFirstOfEachDuplicate() {
+        assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList("SELECT id FROM cards ORDER BY id", Long.class));
+        assertEquals(List.of(1L, 4L), jdbcTemplate.queryForList("SELECT id FROM ips ORDER BY id", Long.class));
+        assertEquals(List.of("x"), jdbcTemplate.queryForList("SELECT password FROM users", String.class));
+        assertEquals(List.of(200L, 1500L), jdbcTemplate.queryForList("SELECT limit_amount FROM limits ORDER BY id", Long.class));
+        assertEquals(4, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.table_constraints WHERE constraint_type = 'UNIQUE' AND constraint_name LIKE 'UK\\_%'", Integer.class));
+    }
+
+    @Test
+    public void regionCorrelationUsesNumberDateIndex() {
+        statements.clear();
+        transactionRepository.findUniqueRegionsInBetweenDates(NUMBER, FROM, TO);
+        assertUsesNumberDateIndex(explainLastQuery());
+    }
+
+    @Test
+    public void ipCorrelationUsesNumberDateIndex() {
+        statements.clear();
+        transactionRepository.findUniqueIPsInBetweenDates(NUMBER, FROM, TO);
+        assertUsesNumberDateIndex(explainLastQuery());
+    }
+
+    // Explains the statement Hibernate generated for the repository query, bound to the same arguments.
+    private String explainLastQuery() {
+        assertFalse(statements.isEmpty());
+        return jdbcTemplate.queryForObject("EXPLAIN " + statements.get(statements.size() - 1), String.class, NUMBER, FROM, TO);
+    }
+
+    private static void assertUsesNumberDateIndex(String plan) {
+        assertTrue(plan, plan.toUpperCase().contains("IDX_TRANSACTIONS_NUMBER_DATE"));
+        assertFalse(plan, plan.contains("tableScan"));
+    }
+}
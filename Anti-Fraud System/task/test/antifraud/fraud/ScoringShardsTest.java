@@ -0,0 +1,138 @@
+package antifraud.fraud;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScoringShardsTest {
+    private static final long[] CARDS = {4000008449433403L, 4000003305160034L, 4000002791128474L};
+    private static final long START = 1_767_225_600_000L;
+    private static final int SUBMITTERS = 8;
+    private static final int PER_SUBMITTER = 500;
+
+    private ScoringShards shards;
+
+    @Before
+    public void setUp() {
+        shards = new ScoringShards(true, 4, 10_000);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        shards.shutdown();
+    }
+
+    @Test
+    public void batchMatchesSequentialRun() {
+        List<CompactTransaction> transactions = transactions(new Random(42), 0, 2_000);
+
+        List<VelocityIndex.Correlation> sharded = shards.callAll(transactions, scorer(newVelocityIndex(), null));
+
+        Function<CompactTransaction, VelocityIndex.Correlation> sequential = scorer(newVelocityIndex(), null);
+        for (int i = 0; i < transactions.size(); i++) {
+            assertEquals("transaction " + i, sequential.apply(transactions.get(i)), sharded.get(i));
+        }
+    }
+
+    // Submitters race on the same hot cards, so only the per-card execution order is fixed; every result must match
+    // a sequential replay of that order, which fails if two transactions of one card ever interleave record and correlate.
+    @Test
+    public void concurrentSameCardLoadMatchesSequentialReplay() throws Exception {
+        VelocityIndex velocityIndex = newVelocityIndex();
+        Map<Long, ConcurrentLinkedQueue<CompactTransaction>> executed = new ConcurrentHashMap<>();
+        Function<CompactTransaction, VelocityIndex.Correlation> task = scorer(velocityIndex, executed);
+        ExecutorService submitters = Executors.newFixedThreadPool(SUBMITTERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<CompactTransaction, VelocityIndex.Correlation>>> futures = new ArrayList<>();
+
+        for (int s = 0; s < SUBMITTERS; s++) {
+            List<CompactTransaction> transactions = transactions(new Random(s), s * PER_SUBMITTER, PER_SUBMITTER);
+            boolean batched = s % 2 == 0;
+
+            futures.add(submitters.submit(() -> {
+                start.await();
+                Map<CompactTransaction, VelocityIndex.Correlation> results = new IdentityHashMap<>();
+
+                if (batched) {
+                    List<VelocityIndex.Correlation> correlations = shards.callAll(transactions, task);
+                    for (int i = 0; i < transactions.size(); i++) {
+                        results.put(transactions.get(i), correlations.get(i));
+                    }
+                } else {
+                    for (CompactTransaction transaction : transactions) {
+                        results.put(transaction, shards.call(transaction, task));
+                    }
+                }
+
+                return results;
+            }));
+        }
+
+        start.countDown();
+        Map<CompactTransaction, VelocityIndex.Correlation> results = new IdentityHashMap<>();
+        for (Future<Map<CompactTransaction, VelocityIndex.Correlation>> future : futures) {
+            results.putAll(future.get());
+        }
+        submitters.shutdown();
+
+        assertEquals(SUBMITTERS * PER_SUBMITTER, results.size());
+
+        Function<CompactTransaction, VelocityIndex.Correlation> replay = scorer(newVelocityIndex(), null);
+        for (ConcurrentLinkedQueue<CompactTransaction> card : executed.values()) {
+            for (CompactTransaction transaction : card) {
+                assertEquals(replay.apply(transaction), results.get(transaction));
+            }
+        }
+    }
+
+    // What FraudService.scoreTransaction does with the index: record the transaction, then correlate it.
+    private static Function<CompactTransaction, VelocityIndex.Correlation> scorer(VelocityIndex velocityIndex,
+                                                                               Map<Long, ConcurrentLinkedQueue<CompactTransaction>> executed) {
+        return transaction -> {
+            velocityIndex.record(transaction);
+            VelocityIndex.Correlation correlation = velocityIndex.correlate(transaction);
+
+            if (executed != null) {
+                executed.computeIfAbsent(transaction.number(), number -> new ConcurrentLinkedQueue<>()).add(transaction);
+            }
+
+            return correlation;
+        };
+    }
+
+    // Distinct times inside one window, so sweeping never depends on how other cards advanced the clock.
+    private static List<CompactTransaction> transactions(Random random, int offset, int count) {
+        List<CompactTransaction> transactions = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            transactions.add(new CompactTransaction(CARDS[random.nextInt(CARDS.length)], 0x0A000000 | random.nextInt(8),
+                    (byte) random.nextInt(Transaction.Region.values().length), START + offset + i, random.nextInt(2_000) + 1));
+        }
+
+        return transactions;
+    }
+
+    private static VelocityIndex newVelocityIndex() {
+        TransactionRepository repository = (TransactionRepository) Proxy.newProxyInstance(TransactionRepository.class.getClassLoader(),
+                new Class<?>[]{TransactionRepository.class},
+                (proxy, method, args) -> method.getReturnType() == List.class ? List.of() : null);
+
+        return new VelocityIndex(repository, new SnapshotStore(false, "fraud.snapshot"));
+    }
+}